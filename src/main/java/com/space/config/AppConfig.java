@@ -1,13 +1,33 @@
 package com.space.config;
 
+import com.space.model.ShipIdGenerator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableMBeanExport;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jmx.support.RegistrationPolicy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -15,9 +35,15 @@ import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.UUID;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
 
@@ -25,30 +51,99 @@ import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.
 @EnableTransactionManagement
 @ComponentScan("com.space.service")
 @EnableJpaRepositories(basePackages = "com.space.repository")
+@EnableMBeanExport(registration = RegistrationPolicy.REPLACE_EXISTING)
+@PropertySource("classpath:cosmoport.properties")
+// Only in builds made with -Pvirtual-threads; its settings override cosmoport.properties.
+@PropertySource(value = "classpath:cosmoport-virtual-threads.properties", ignoreResourceNotFound = true)
 public class AppConfig {
 
+    private Environment environment;
+
+    @Autowired
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(ObjectProvider<CacheManager> hibernateCacheManager) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
         em.setPackagesToScan("com.space.model");
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
-        em.setJpaProperties(additionalProperties());
+        em.setJpaProperties(additionalProperties(hibernateCacheManager.getIfAvailable()));
 
         return em;
     }
 
+    // Read-only transactions go to the replicas listed in cosmoport.datasource.replica-urls,
+    // everything else to the primary. The lazy proxy delays picking a pool until the first
+    // statement, when the transaction's read-only flag is known.
     @Profile("prod")
     @Bean
+    @Primary
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        return new LazyConnectionDataSourceProxy(routingDataSource());
+    }
+
+    @Profile("prod")
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource routingDataSource() {
+        DataSource primary = pool("cosmoport", environment.getProperty("cosmoport.datasource.url"), false);
+        List<DataSource> replicas = new ArrayList<>();
+        String[] replicaUrls = environment.getProperty("cosmoport.datasource.replica-urls", String[].class, new String[0]);
+        for (String url : replicaUrls) {
+            if (!url.trim().isEmpty()) {
+                replicas.add(pool("cosmoport-replica-" + replicas.size(), url.trim(), true));
+            }
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replicas);
+        routing.startHealthChecks(
+                environment.getProperty("cosmoport.datasource.replica-check-interval", Long.class, 5000L),
+                environment.getProperty("cosmoport.datasource.replica-check-timeout", Integer.class, 2));
+        return routing;
+    }
+
+    // A replica that is down must neither stop startup nor hold a read for long: its pool starts
+    // empty, and the routing falls back to the primary after replica-connection-timeout.
+    private HikariDataSource pool(String name, String url, boolean replica) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(url);
+        config.setUsername(environment.getProperty("cosmoport.datasource.username"));
+        config.setPassword(environment.getProperty("cosmoport.datasource.password"));
+        config.setMaximumPoolSize(environment.getProperty("cosmoport.datasource.pool.maximum-size", Integer.class, 10));
+        config.setMinimumIdle(environment.getProperty("cosmoport.datasource.pool.minimum-idle", Integer.class, 10));
+        config.setConnectionTimeout(replica
+                ? environment.getProperty("cosmoport.datasource.replica-connection-timeout", Long.class, 2000L)
+                : environment.getProperty("cosmoport.datasource.pool.connection-timeout", Long.class, 30000L));
+        if (replica) {
+            config.setInitializationFailTimeout(-1);
+        }
+        config.setIdleTimeout(environment.getProperty("cosmoport.datasource.pool.idle-timeout", Long.class, 600000L));
+        config.setMaxLifetime(environment.getProperty("cosmoport.datasource.pool.max-lifetime", Long.class, 1800000L));
+        config.setLeakDetectionThreshold(environment.getProperty("cosmoport.datasource.pool.leak-detection-threshold", Long.class, 0L));
+        // Connector/J client-side statement cache, so repeated queries are not prepared again.
+        config.addDataSourceProperty("cachePrepStmts", environment.getProperty("cosmoport.datasource.cache-prep-stmts", "true"));
+        config.addDataSourceProperty("prepStmtCacheSize", environment.getProperty("cosmoport.datasource.prep-stmt-cache-size", "250"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", environment.getProperty("cosmoport.datasource.prep-stmt-cache-sql-limit", "2048"));
+        config.addDataSourceProperty("useServerPrepStmts", environment.getProperty("cosmoport.datasource.use-server-prep-stmts", "true"));
+        config.setRegisterMbeans(true);
+        config.setMetricsTrackerFactory(connectionPoolMetrics());
+        return new HikariDataSource(config);
+    }
+
+    @Profile("prod")
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
     }
 
     @Profile("dev")
@@ -64,6 +159,37 @@ public class AppConfig {
                 .build();
     }
 
+    // Second-level and query cache regions for Hibernate, each with its own entry limit.
+    // The manager gets a unique URI so that several application contexts never share regions.
+    @Profile("l2cache")
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${cosmoport.hibernate.cache.ship.max-entries:10000}") long shipEntries,
+            @Value("${cosmoport.hibernate.cache.query-results.max-entries:1000}") long queryResultEntries,
+            @Value("${cosmoport.hibernate.cache.update-timestamps.max-entries:1000}") long timestampEntries) {
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withCache("com.space.model.Ship", region(shipEntries))
+                .withCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryResultEntries))
+                .withCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(timestampEntries))
+                .build();
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(URI.create("urn:cosmoport:" + UUID.randomUUID()), configuration);
+    }
+
+    private static CacheConfiguration<Object, Object> region(long entries) {
+        return CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(entries)).build();
+    }
+
+    // Runs the service calls of the /rest/async endpoints off the servlet container threads.
+    @Bean(destroyMethod = "shutdown")
+    public BoundedExecutor asyncRequestExecutor() {
+        return new BoundedExecutor("async-request",
+                environment.getProperty("cosmoport.async.threads", Integer.class, 16),
+                environment.getProperty("cosmoport.async.queue-capacity", Integer.class, 100));
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
@@ -77,9 +203,27 @@ public class AppConfig {
         return new PersistenceExceptionTranslationPostProcessor();
     }
 
-    private Properties additionalProperties() {
+    private Properties additionalProperties(CacheManager hibernateCacheManager) {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE,
+                environment.getProperty("cosmoport.hibernate.jdbc.batch-size", "50"));
+        properties.setProperty(AvailableSettings.ORDER_INSERTS, "true");
+        properties.setProperty(AvailableSettings.ORDER_UPDATES, "true");
+        properties.setProperty(ShipIdGenerator.INCREMENT_SIZE_SETTING,
+                environment.getProperty("cosmoport.ship.id.increment-size", "50"));
+        if (hibernateCacheManager != null) {
+            properties.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+            properties.setProperty(AvailableSettings.USE_QUERY_CACHE, "true");
+            properties.setProperty(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.setProperty(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.setProperty(AvailableSettings.GENERATE_STATISTICS, "true");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+        } else {
+            // Hibernate would otherwise pick up hibernate-jcache from the classpath on its own.
+            properties.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false");
+            properties.setProperty(AvailableSettings.USE_QUERY_CACHE, "false");
+        }
 
         return properties;
     }
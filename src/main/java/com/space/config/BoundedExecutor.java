@@ -0,0 +1,105 @@
+package com.space.config;
+
+import com.space.exceptions.ServiceBusyException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Fixed pool with a bounded queue for the service calls of the async endpoints. When both are
+ * full a call is refused with 503 instead of queueing without limit. Cancelling the returned
+ * future of a call that has not started takes it off the queue, so a request that timed out does
+ * not still take a thread and a connection. Pool and queue state and the number of refused and
+ * cancelled calls are exported over JMX.
+ */
+@ManagedResource(objectName = "com.space:type=AsyncRequestExecutor")
+public class BoundedExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    public BoundedExecutor(String name, int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            if (future.isCancelled()) {
+                cancelled.incrementAndGet();
+                return;
+            }
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new ServiceBusyException();
+        }
+        future.whenComplete((value, failure) -> {
+            if (future.isCancelled() && executor.remove(task)) {
+                cancelled.incrementAndGet();
+            }
+        });
+        return future;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @ManagedAttribute
+    public int getPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @ManagedAttribute
+    public int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+
+    @ManagedAttribute
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @ManagedAttribute
+    public int getQueueRemainingCapacity() {
+        return executor.getQueue().remainingCapacity();
+    }
+
+    @ManagedAttribute
+    public long getCompletedTasks() {
+        return executor.getCompletedTaskCount();
+    }
+
+    @ManagedAttribute
+    public long getRejectedTasks() {
+        return rejected.get();
+    }
+
+    @ManagedAttribute
+    public long getCancelledTasks() {
+        return cancelled.get();
+    }
+}
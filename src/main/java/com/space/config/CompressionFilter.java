@@ -0,0 +1,279 @@
+package com.space.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.MimeType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses text responses with gzip or deflate, whichever the client accepts. The first
+ * minSize bytes are held back: a smaller response goes out as it is, a larger one is compressed
+ * as it streams. Responses that already carry a Content-Encoding, such as precompressed static
+ * resources, are left alone, and so is a response whose output switches to non-blocking writes
+ * before anything was compressed.
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final Set<String> COMPRESSIBLE_TYPES = new HashSet<>(Arrays.asList(
+            "application/json", "application/x-ndjson", "application/javascript", "application/xml",
+            "image/svg+xml"));
+
+    private int minSize = 1024;
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // An async dispatch comes back with the wrapper of the initial request.
+        CompressingResponse compressing = WebUtils.getNativeResponse(response, CompressingResponse.class);
+        if (compressing == null) {
+            String encoding = "HEAD".equals(request.getMethod()) ? null : chooseEncoding(request);
+            if (encoding == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            compressing = new CompressingResponse(response, encoding);
+            response = compressing;
+        }
+        chain.doFilter(request, response);
+        if (!isAsyncStarted(request)) {
+            compressing.finish();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private static String chooseEncoding(HttpServletRequest request) {
+        List<String> accepted = Collections.list(request.getHeaders(HttpHeaders.ACCEPT_ENCODING));
+        boolean deflate = false;
+        for (String header : accepted) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?")) {
+                    continue;
+                }
+                if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                    return "gzip";
+                }
+                deflate |= "deflate".equalsIgnoreCase(parts[0].trim());
+            }
+        }
+        return deflate ? "deflate" : null;
+    }
+
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MimeType mimeType = MimeType.valueOf(contentType);
+        return "text".equals(mimeType.getType())
+                || COMPRESSIBLE_TYPES.contains(mimeType.getType() + "/" + mimeType.getSubtype())
+                || mimeType.getSubtype().endsWith("+json");
+    }
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final String encoding;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream target;
+        private long contentLength = -1;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        CompressingResponse(HttpServletResponse response, String encoding) {
+            super(response);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            contentLength = len;
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            contentLength = len;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (outputStream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                writer = new PrintWriter(new OutputStreamWriter(new ServletStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        private ServletOutputStream stream() {
+            if (outputStream == null) {
+                outputStream = new ServletStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            buffer.reset();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            buffer.reset();
+            contentLength = -1;
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            if (target == null && buffer.size() + len <= minSize) {
+                buffer.write(b, off, len);
+                return;
+            }
+            if (target == null) {
+                start(true);
+            }
+            target.write(b, off, len);
+        }
+
+        // Called once the first minSize bytes are exceeded, or at the end for a short response.
+        private void start(boolean large) throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (large && response.getHeader(HttpHeaders.CONTENT_ENCODING) == null && isCompressible(getContentType())) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+                OutputStream out = response.getOutputStream();
+                target = "gzip".equals(encoding) ? new GZIPOutputStream(out, 8192) : new DeflaterOutputStream(out);
+            } else {
+                long length = large ? contentLength : buffer.size();
+                if (length >= 0) {
+                    response.setContentLengthLong(length);
+                }
+                target = response.getOutputStream();
+            }
+            buffer.writeTo(target);
+            buffer.reset();
+        }
+
+        // Non-blocking writes cannot go through the compressor, so the response is sent as it is.
+        private void setWriteListener(WriteListener writeListener) {
+            if (target == null) {
+                try {
+                    HttpServletResponse response = (HttpServletResponse) getResponse();
+                    if (contentLength >= 0) {
+                        response.setContentLengthLong(contentLength);
+                    }
+                    target = response.getOutputStream();
+                    buffer.writeTo(target);
+                    buffer.reset();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            if (!(target instanceof ServletOutputStream)) {
+                throw new IllegalStateException("The response is already being compressed");
+            }
+            ((ServletOutputStream) target).setWriteListener(writeListener);
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target == null) {
+                if (buffer.size() == 0 && isCommitted()) {
+                    return;
+                }
+                start(false);
+            }
+            if (target instanceof DeflaterOutputStream) {
+                ((DeflaterOutputStream) target).finish();
+            }
+            target.flush();
+        }
+
+        private class ServletStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                CompressingResponse.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (target != null) {
+                    target.flush();
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                return !(target instanceof ServletOutputStream) || ((ServletOutputStream) target).isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                CompressingResponse.this.setWriteListener(writeListener);
+            }
+        }
+    }
+}
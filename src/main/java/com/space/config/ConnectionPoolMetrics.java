@@ -0,0 +1,102 @@
+package com.space.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool metrics exported over JMX: how long requests wait for a connection, how long
+ * they hold it, and the current pool state. With read replicas the figures are summed over the
+ * primary and replica pools. The pool state comes from Hikari's PoolStats, which refreshes at
+ * most once a second.
+ */
+@ManagedResource(objectName = "com.space:type=ConnectionPoolMetrics")
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final LongAdder usages = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final List<PoolStats> poolStats = new CopyOnWriteArrayList<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats.add(poolStats);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquisitions.increment();
+                acquireNanos.add(elapsedAcquiredNanos);
+                maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usages.increment();
+                usageMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    @ManagedAttribute
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    @ManagedAttribute
+    public double getAverageAcquireMillis() {
+        long count = acquisitions.sum();
+        return count == 0 ? 0 : (double) acquireNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @ManagedAttribute
+    public double getMaxAcquireMillis() {
+        return (double) maxAcquireNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @ManagedAttribute
+    public double getAverageUsageMillis() {
+        long count = usages.sum();
+        return count == 0 ? 0 : (double) usageMillis.sum() / count;
+    }
+
+    @ManagedAttribute
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @ManagedAttribute
+    public int getActiveConnections() {
+        return poolStats.stream().mapToInt(PoolStats::getActiveConnections).sum();
+    }
+
+    @ManagedAttribute
+    public int getIdleConnections() {
+        return poolStats.stream().mapToInt(PoolStats::getIdleConnections).sum();
+    }
+
+    @ManagedAttribute
+    public int getTotalConnections() {
+        return poolStats.stream().mapToInt(PoolStats::getTotalConnections).sum();
+    }
+
+    @ManagedAttribute
+    public int getPendingThreads() {
+        return poolStats.stream().mapToInt(PoolStats::getPendingThreads).sum();
+    }
+}
@@ -0,0 +1,77 @@
+package com.space.config;
+
+import com.space.exceptions.ServiceBusyException;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the handler methods of the dispatched controllers through Spring MVC's async processing:
+ * the container thread binds the arguments and starts async processing, the method runs on the
+ * async task executor, and its result is written on the async dispatch. At most maxRequests run at
+ * a time; more are answered with 503. These requests have no async timeout, as when the method ran
+ * on the container thread; JDBC and pool timeouts bound how long they take.
+ */
+public class DispatchingHandlerAdapter extends RequestMappingHandlerAdapter {
+
+    private Set<Class<?>> dispatchedTypes = Collections.emptySet();
+    private Semaphore permits = new Semaphore(Integer.MAX_VALUE);
+
+    public void setDispatchedTypes(Class<?>... dispatchedTypes) {
+        this.dispatchedTypes = new HashSet<>(Arrays.asList(dispatchedTypes));
+    }
+
+    public void setMaxRequests(int maxRequests) {
+        permits = new Semaphore(maxRequests);
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        if (isDispatched(handlerMethod)) {
+            return new DispatchedHandlerMethod(handlerMethod);
+        }
+        return super.createInvocableHandlerMethod(handlerMethod);
+    }
+
+    // The async dispatch of a void method only carries its null result: the method has already
+    // written the response, so there is no view to render.
+    @Override
+    protected ModelAndView invokeHandlerMethod(HttpServletRequest request, HttpServletResponse response,
+                                               HandlerMethod handlerMethod) throws Exception {
+        ModelAndView modelAndView = super.invokeHandlerMethod(request, response, handlerMethod);
+        return isDispatched(handlerMethod) && handlerMethod.isVoid() ? null : modelAndView;
+    }
+
+    private boolean isDispatched(HandlerMethod handlerMethod) {
+        return dispatchedTypes.contains(handlerMethod.getBeanType());
+    }
+
+    private class DispatchedHandlerMethod extends ServletInvocableHandlerMethod {
+
+        DispatchedHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        // The permit is returned when the request completes, also when the task never ran.
+        @Override
+        protected Object doInvoke(Object... args) {
+            Semaphore taken = permits;
+            if (!taken.tryAcquire()) {
+                throw new ServiceBusyException();
+            }
+            WebAsyncTask<Object> task = new WebAsyncTask<>(0L, () -> super.doInvoke(args));
+            task.onCompletion(taken::release);
+            return task;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.space.config;
 
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 
@@ -10,7 +12,7 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
     @Override
     public void onStartup(ServletContext servletContext) throws ServletException {
         super.onStartup(servletContext);
-        servletContext.setInitParameter("spring.profiles.active", "prod");
+        servletContext.setInitParameter("spring.profiles.active", System.getProperty("spring.profiles.active", "prod"));
     }
 
     @Override
@@ -28,4 +30,16 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
         return new String[]{"/"};
     }
 
+    // The /rest/async endpoints, and ShipController when it has a task executor (see WebConfig),
+    // release the container thread while the service call runs.
+    @Override
+    protected boolean isAsyncSupported() {
+        return true;
+    }
+
+    @Override
+    protected Filter[] getServletFilters() {
+        return new Filter[]{new CompressionFilter(), new ResourceUrlEncodingFilter()};
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.space.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to the healthy replicas in turn and everything
+ * else to the primary. A replica that fails a health check or a connection attempt is skipped
+ * until a later check finds it valid again; with no healthy replica, reads go to the primary.
+ * <p>
+ * The read-only flag is only known once the transaction has started, so this has to be wrapped
+ * in a LazyConnectionDataSourceProxy.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private volatile List<Integer> healthyReplicas;
+    private ScheduledExecutorService healthChecks;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        List<Integer> all = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            all.add(i);
+        }
+        this.healthyReplicas = Collections.unmodifiableList(all);
+    }
+
+    public void startHealthChecks(long intervalMillis, int validationTimeoutSeconds) {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(() -> checkReplicas(validationTimeoutSeconds),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void checkReplicas(int validationTimeoutSeconds) {
+        List<Integer> healthy = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            try (Connection connection = replicas.get(i).getConnection()) {
+                if (connection.isValid(validationTimeoutSeconds)) {
+                    healthy.add(i);
+                }
+            } catch (SQLException e) {
+                log.warn("Replica {} failed its health check: {}", i, e.getMessage());
+            }
+        }
+        healthyReplicas = Collections.unmodifiableList(healthy);
+    }
+
+    public int getHealthyReplicaCount() {
+        return healthyReplicas.size();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int replica = chooseReplica();
+        if (replica >= 0) {
+            try {
+                return replicas.get(replica).getConnection();
+            } catch (SQLException e) {
+                markUnhealthy(replica, e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        int replica = chooseReplica();
+        if (replica >= 0) {
+            try {
+                return replicas.get(replica).getConnection(username, password);
+            } catch (SQLException e) {
+                markUnhealthy(replica, e);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable) {
+                ((AutoCloseable) replica).close();
+            }
+        }
+        if (primary instanceof AutoCloseable) {
+            ((AutoCloseable) primary).close();
+        }
+    }
+
+    // Index of the replica for the current connection, or -1 for the primary.
+    private int chooseReplica() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return -1;
+        }
+        List<Integer> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return -1;
+        }
+        return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size()));
+    }
+
+    private synchronized void markUnhealthy(int replica, SQLException cause) {
+        log.warn("Replica {} refused a connection, reading from the primary: {}", replica, cause.getMessage());
+        List<Integer> healthy = new ArrayList<>(healthyReplicas);
+        healthy.remove(Integer.valueOf(replica));
+        healthyReplicas = Collections.unmodifiableList(healthy);
+    }
+}
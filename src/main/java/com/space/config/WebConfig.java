@@ -2,26 +2,47 @@ package com.space.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.space.controller.ShipController;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.ViewResolver;
-import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+// Extends the MVC configuration directly instead of using @EnableWebMvc, to supply its own handler adapter.
 @Configuration
-@EnableWebMvc
 @ComponentScan("com.space.controller")
-public class WebConfig implements WebMvcConfigurer {
+public class WebConfig extends WebMvcConfigurationSupport {
 
+    private Environment environment;
+
+    @Autowired
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -37,16 +58,52 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addViewController("/").setViewName("index");
     }
 
+    // Resources are linked by content-hashed URLs (see ResourceUrlEncodingFilter), so they can be
+    // cached for a year. The .gz/.br variants made by the build are served when the client accepts them.
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
+        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    // An async request still waiting after the timeout is answered with 503. Builds made with
+    // -Pvirtual-threads name a virtual-thread executor in cosmoport.mvc.task-executor (see VirtualThreadInit).
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(environment.getProperty("cosmoport.async.timeout", Long.class, 10000L));
+        String taskExecutor = environment.getProperty("cosmoport.mvc.task-executor");
+        if (StringUtils.hasText(taskExecutor)) {
+            configurer.setTaskExecutor(BeanUtils.instantiateClass(
+                    ClassUtils.resolveClassName(taskExecutor, getClass().getClassLoader()), AsyncTaskExecutor.class));
+        }
     }
 
+    // With a task executor configured, ShipController's handlers run on it instead of on the container thread.
+    @Override
+    protected RequestMappingHandlerAdapter createRequestMappingHandlerAdapter() {
+        DispatchingHandlerAdapter adapter = new DispatchingHandlerAdapter();
+        if (StringUtils.hasText(environment.getProperty("cosmoport.mvc.task-executor"))) {
+            adapter.setDispatchedTypes(ShipController.class);
+            adapter.setMaxRequests(environment.getProperty("cosmoport.mvc.max-requests", Integer.class, 2000));
+        }
+        return adapter;
+    }
+
+    // JSON stays the default; clients that send Accept: application/x-jackson-smile or
+    // application/cbor get the same document in a binary encoding.
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
+        converters.add(fieldsOnly(new MappingJackson2HttpMessageConverter()));
+        converters.add(fieldsOnly(new MappingJackson2SmileHttpMessageConverter()));
+        converters.add(fieldsOnly(new MappingJackson2CborHttpMessageConverter()));
+    }
+
+    private static AbstractJackson2HttpMessageConverter fieldsOnly(AbstractJackson2HttpMessageConverter converter) {
         converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
         converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        return converter;
     }
 }
\ No newline at end of file
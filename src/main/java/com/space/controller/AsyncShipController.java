@@ -0,0 +1,89 @@
+package com.space.controller;
+
+import com.space.config.BoundedExecutor;
+import com.space.model.ShipFilter;
+import com.space.service.ShipService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Read endpoints of ShipController that free the container thread while the service call runs
+ * on the async request executor. A full executor answers 503 at once, a call that outlasts
+ * cosmoport.async.timeout answers 503 when it expires and is dropped if it has not started yet.
+ */
+@RestController
+@RequestMapping("/rest/async")
+public class AsyncShipController {
+
+    private ShipService shipService;
+    private BoundedExecutor executor;
+
+    @Autowired
+    public void setShipService(ShipService shipService) {
+        this.shipService = shipService;
+    }
+
+    @Autowired
+    public void setExecutor(BoundedExecutor executor) {
+        this.executor = executor;
+    }
+
+    @RequestMapping(value = "/ships/{id}", method = RequestMethod.GET)
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public DeferredResult<Object> getShip(@PathVariable (value = "id") String id,
+                                          @RequestParam (value = "fields", required = false) String fields) {
+        if (fields != null) {
+            List<ShipField> selected = ShipField.parse(fields);
+            return defer(() -> shipService.getShip(id, selected));
+        }
+        return defer(() -> shipService.getShip(id));
+    }
+
+    @RequestMapping(value = "/ships", method = RequestMethod.GET)
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public DeferredResult<List<?>> getShipsList(@ModelAttribute ShipFilter filter,
+                                                @RequestParam (value = "order", required = false, defaultValue = "ID") ShipOrder order,
+                                                @RequestParam (value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
+                                                @RequestParam (value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+                                                @RequestParam (value = "fields", required = false) String fields) {
+        if (fields != null) {
+            List<ShipField> selected = ShipField.parse(fields);
+            return defer(() -> shipService.getShipsList(filter, order, pageNumber, pageSize, selected));
+        }
+        return defer(() -> shipService.getShipsList(filter, order, pageNumber, pageSize));
+    }
+
+    @RequestMapping(value = "/ships/count", method = RequestMethod.GET)
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public DeferredResult<Integer> getShipsCount(@ModelAttribute ShipFilter filter) {
+        return defer(() -> shipService.getShipsCount(filter));
+    }
+
+    // The timeout cancels the call, which takes it off the executor's queue if it is still there;
+    // the cancellation itself is not a result, so the timeout still answers 503.
+    private <T> DeferredResult<T> defer(Supplier<T> call) {
+        DeferredResult<T> result = new DeferredResult<>();
+        CompletableFuture<T> future = executor.supply(call);
+        result.onTimeout(() -> future.cancel(false));
+        future.whenComplete((value, failure) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            if (failure != null) {
+                result.setErrorResult(failure);
+            } else {
+                result.setResult(value);
+            }
+        });
+        return result;
+    }
+}
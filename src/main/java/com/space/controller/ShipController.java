@@ -1,17 +1,26 @@
 package com.space.controller;
 
 import com.space.model.Ship;
-import com.space.model.ShipType;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipFilter;
 import com.space.service.ShipService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/rest")
 public class ShipController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private ShipService shipService;
 
     @Autowired
@@ -30,6 +39,47 @@ public class ShipController {
 
 
 
+    @RequestMapping(value = "/ships/batch", method = RequestMethod.POST)
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public ShipBatchResult addShips(@RequestBody List<Ship> ships) {
+        return shipService.addShips(ships);
+    }
+
+
+
+    @RequestMapping(value = "/ships/bulk", method = RequestMethod.POST)
+    @ResponseStatus(HttpStatus.OK)
+    public Integer updateShips(@RequestBody Ship ship,
+                               @ModelAttribute ShipFilter filter) {
+        return shipService.updateShips(ship, filter);
+    }
+
+
+
+    @RequestMapping(value = "/ships/bulk", method = RequestMethod.DELETE)
+    @ResponseStatus(HttpStatus.OK)
+    public Integer deleteShips(@ModelAttribute ShipFilter filter) {
+        return shipService.deleteShips(filter);
+    }
+
+
+
+    // Streams every matching ship in id order, one per line, instead of paging through /ships.
+    @RequestMapping(value = "/ships/export", method = RequestMethod.GET)
+    public void exportShips(@ModelAttribute ShipFilter filter,
+                            @RequestParam (value = "format", required = false, defaultValue = "ndjson") String format,
+                            HttpServletResponse response) throws IOException {
+        ShipExportFormat exportFormat = ShipExportFormat.of(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (ShipExportWriter writer = ShipExportWriter.open(exportFormat, response.getOutputStream())) {
+            shipService.exportShips(filter, writer::write);
+        }
+    }
+
+
+
     @RequestMapping(value = "/ships/{id}", method = RequestMethod.DELETE)
     @ResponseStatus(HttpStatus.OK)
     public void deleteShip(@PathVariable (value = "id") String id) {
@@ -51,7 +101,11 @@ public class ShipController {
     @RequestMapping(value = "/ships/{id}", method = RequestMethod.GET)
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public Ship getShip(@PathVariable (value = "id") String id) {
+    public Object getShip(@PathVariable (value = "id") String id,
+                          @RequestParam (value = "fields", required = false) String fields) {
+        if (fields != null) {
+            return shipService.getShip(id, ShipField.parse(fields));
+        }
         return shipService.getShip(id);
     }
 
@@ -60,42 +114,58 @@ public class ShipController {
     @RequestMapping(value = "/ships", method = RequestMethod.GET)
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public List<Ship> getShipsCount(@RequestParam (value = "name", required = false) String name,
-                                    @RequestParam (value = "planet", required = false) String planet,
-                                    @RequestParam (value = "shipType", required = false) ShipType shipType,
-                                    @RequestParam (value = "after", required = false) Long after,
-                                    @RequestParam (value = "before", required = false) Long before,
-                                    @RequestParam (value = "isUsed", required = false) Boolean isUsed,
-                                    @RequestParam (value = "minSpeed", required = false) Double minSpeed,
-                                    @RequestParam (value = "maxSpeed", required = false) Double maxSpeed,
-                                    @RequestParam (value = "minCrewSize", required = false) Integer minCrewSize,
-                                    @RequestParam (value = "maxCrewSize", required = false) Integer maxCrewSize,
-                                    @RequestParam (value = "minRating", required = false) Double minRating,
-                                    @RequestParam (value = "maxRating", required = false) Double maxRating,
+    public List<?> getShipsCount(@ModelAttribute ShipFilter filter,
                                     @RequestParam (value = "order", required = false, defaultValue = "ID") ShipOrder order,
                                     @RequestParam (value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
-                                    @RequestParam (value = "pageSize", required = false, defaultValue = "3") Integer pageSize) {
-        return shipService.getShipsList(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed,
-                minCrewSize, maxCrewSize, minRating, maxRating, order, pageNumber, pageSize);
+                                    @RequestParam (value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+                                    @RequestParam (value = "cursor", required = false) String cursor,
+                                    @RequestParam (value = "fields", required = false) String fields,
+                                    HttpServletResponse response) {
+        if (cursor == null && fields == null) {
+            return shipService.getShipsList(filter, order, pageNumber, pageSize);
+        }
+        if (fields != null) {
+            List<ShipField> selected = ShipField.parse(fields);
+            if (cursor == null) {
+                return shipService.getShipsList(filter, order, pageNumber, pageSize, selected);
+            }
+            return getShipFieldsAfter(filter, order, cursor, pageSize, selected, response);
+        }
+        ShipCursor previous = cursor.isEmpty() ? null : ShipCursor.decode(cursor, order);
+        List<Ship> ships = shipService.getShipsListAfter(filter, order, previous, pageSize);
+        if (!ships.isEmpty() && ships.size() == pageSize) {
+            response.setHeader(NEXT_CURSOR_HEADER, ShipCursor.after(ships.get(ships.size() - 1), order).encode());
+        }
+        return ships;
+    }
+
+    // The next cursor needs the order field of the last row, so it is read even when not requested.
+    private List<Map<String, Object>> getShipFieldsAfter(ShipFilter filter, ShipOrder order, String cursor,
+                                                         Integer pageSize, List<ShipField> fields,
+                                                         HttpServletResponse response) {
+        ShipField orderField = ShipField.of(order.getFieldName());
+        List<ShipField> selected = new ArrayList<>(fields);
+        if (!selected.contains(orderField)) {
+            selected.add(orderField);
+        }
+        ShipCursor previous = cursor.isEmpty() ? null : ShipCursor.decode(cursor, order);
+        List<Map<String, Object>> rows = shipService.getShipsListAfter(filter, order, previous, pageSize, selected);
+        if (!rows.isEmpty() && rows.size() == pageSize) {
+            response.setHeader(NEXT_CURSOR_HEADER, ShipCursor.after(rows.get(rows.size() - 1), order).encode());
+        }
+        if (!fields.contains(orderField)) {
+            for (Map<String, Object> row : rows) {
+                row.remove(orderField.getFieldName());
+            }
+        }
+        return rows;
     }
 
 
 
     @RequestMapping(value = "/ships/count", method = RequestMethod.GET)
     @ResponseStatus(HttpStatus.OK)
-    public Integer getShipsCount(@RequestParam (value = "name", required = false) String name,
-                                 @RequestParam (value = "planet", required = false) String planet,
-                                 @RequestParam (value = "shipType", required = false) ShipType shipType,
-                                 @RequestParam (value = "after", required = false) Long after,
-                                 @RequestParam (value = "before", required = false) Long before,
-                                 @RequestParam (value = "isUsed", required = false) Boolean isUsed,
-                                 @RequestParam (value = "minSpeed", required = false) Double minSpeed,
-                                 @RequestParam (value = "maxSpeed", required = false) Double maxSpeed,
-                                 @RequestParam (value = "minCrewSize", required = false) Integer minCrewSize,
-                                 @RequestParam (value = "maxCrewSize", required = false) Integer maxCrewSize,
-                                 @RequestParam (value = "minRating", required = false) Double minRating,
-                                 @RequestParam (value = "maxRating", required = false) Double maxRating) {
-        return shipService.getShipsCount(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed,
-                minCrewSize, maxCrewSize, minRating, maxRating);
+    public Integer getShipsCount(@ModelAttribute ShipFilter filter) {
+        return shipService.getShipsCount(filter);
     }
 }
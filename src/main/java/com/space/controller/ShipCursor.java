@@ -0,0 +1,94 @@
+package com.space.controller;
+
+import com.space.exceptions.BadParamsException;
+import com.space.model.Ship;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+public class ShipCursor {
+
+    private final ShipOrder order;
+    private final long sortValue;
+    private final long id;
+
+    private ShipCursor(ShipOrder order, long sortValue, long id) {
+        this.order = order;
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public static ShipCursor after(Ship ship, ShipOrder order) {
+        Object sortValue;
+        switch (order) {
+            case SPEED:
+                sortValue = ship.getSpeed();
+                break;
+            case RATING:
+                sortValue = ship.getRating();
+                break;
+            case DATE:
+                sortValue = ship.getProdDate();
+                break;
+            default:
+                sortValue = ship.getId();
+        }
+        return after(sortValue, ship.getId(), order);
+    }
+
+    // For projected rows, which carry the id and the order field under their attribute names.
+    public static ShipCursor after(Map<String, Object> row, ShipOrder order) {
+        return after(row.get(order.getFieldName()), (Long) row.get(ShipOrder.ID.getFieldName()), order);
+    }
+
+    private static ShipCursor after(Object sortValue, long id, ShipOrder order) {
+        switch (order) {
+            case SPEED:
+            case RATING:
+                return new ShipCursor(order, Double.doubleToLongBits((Double) sortValue), id);
+            case DATE:
+                return new ShipCursor(order, ((Date) sortValue).getTime(), id);
+            default:
+                return new ShipCursor(order, id, id);
+        }
+    }
+
+    public static ShipCursor decode(String token, ShipOrder order) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3 || ShipOrder.valueOf(parts[0]) != order) {
+                throw new BadParamsException();
+            }
+            return new ShipCursor(order, Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new BadParamsException();
+        }
+    }
+
+    public String encode() {
+        String value = order.name() + ":" + sortValue + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ShipOrder getOrder() {
+        return order;
+    }
+
+    public Comparable<?> getSortValue() {
+        switch (order) {
+            case SPEED:
+            case RATING:
+                return Double.longBitsToDouble(sortValue);
+            case DATE:
+                return new Date(sortValue);
+            default:
+                return sortValue;
+        }
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,27 @@
+package com.space.controller;
+
+import com.space.exceptions.BadParamsException;
+
+public enum ShipExportFormat {
+    NDJSON("application/x-ndjson"), // default
+    CSV("text/csv");
+
+    private String contentType;
+
+    ShipExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static ShipExportFormat of(String format) {
+        for (ShipExportFormat exportFormat : values()) {
+            if (exportFormat.name().equalsIgnoreCase(format)) {
+                return exportFormat;
+            }
+        }
+        throw new BadParamsException();
+    }
+}
@@ -0,0 +1,135 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.space.model.Ship;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes exported ships one at a time straight to the response, in the same fields as the
+ * JSON API (prodDate in epoch milliseconds). Nothing but the current ship is held in memory.
+ */
+public abstract class ShipExportWriter implements Closeable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public static ShipExportWriter open(ShipExportFormat format, OutputStream out) throws IOException {
+        return format == ShipExportFormat.CSV ? new Csv(out) : new Ndjson(out);
+    }
+
+    public void write(Ship ship) {
+        try {
+            writeShip(ship);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected abstract void writeShip(Ship ship) throws IOException;
+
+    private static class Ndjson extends ShipExportWriter {
+
+        private final JsonGenerator generator;
+
+        Ndjson(OutputStream out) throws IOException {
+            generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+            // Lines are separated by writeShip; the default separator would start each one with a space.
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        protected void writeShip(Ship ship) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", ship.getId());
+            generator.writeStringField("name", ship.getName());
+            generator.writeStringField("planet", ship.getPlanet());
+            generator.writeStringField("shipType", ship.getShipType() == null ? null : ship.getShipType().name());
+            if (ship.getProdDate() == null) {
+                generator.writeNullField("prodDate");
+            } else {
+                generator.writeNumberField("prodDate", ship.getProdDate().getTime());
+            }
+            generator.writeFieldName("isUsed");
+            generator.writeObject(ship.getUsed());
+            generator.writeFieldName("speed");
+            generator.writeObject(ship.getSpeed());
+            generator.writeFieldName("crewSize");
+            generator.writeObject(ship.getCrewSize());
+            generator.writeFieldName("rating");
+            generator.writeObject(ship.getRating());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static class Csv extends ShipExportWriter {
+
+        private final Writer writer;
+
+        Csv(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating\n");
+        }
+
+        @Override
+        protected void writeShip(Ship ship) throws IOException {
+            writer.write(String.valueOf(ship.getId()));
+            writer.write(',');
+            writeText(ship.getName());
+            writer.write(',');
+            writeText(ship.getPlanet());
+            writer.write(',');
+            writeValue(ship.getShipType());
+            writer.write(',');
+            writeValue(ship.getProdDate() == null ? null : ship.getProdDate().getTime());
+            writer.write(',');
+            writeValue(ship.getUsed());
+            writer.write(',');
+            writeValue(ship.getSpeed());
+            writer.write(',');
+            writeValue(ship.getCrewSize());
+            writer.write(',');
+            writeValue(ship.getRating());
+            writer.write('\n');
+        }
+
+        // RFC 4180 quoting: only when needed, with inner quotes doubled.
+        private void writeText(String text) throws IOException {
+            if (text == null) {
+                return;
+            }
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value != null) {
+                writer.write(value.toString());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.space.controller;
+
+import com.space.exceptions.BadParamsException;
+import com.space.model.Ship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public enum ShipField {
+    ID("id", Ship::getId),
+    NAME("name", Ship::getName),
+    PLANET("planet", Ship::getPlanet),
+    SHIP_TYPE("shipType", Ship::getShipType),
+    PROD_DATE("prodDate", Ship::getProdDate),
+    IS_USED("isUsed", Ship::getUsed),
+    SPEED("speed", Ship::getSpeed),
+    CREW_SIZE("crewSize", Ship::getCrewSize),
+    RATING("rating", Ship::getRating);
+
+    private String fieldName;
+    private Function<Ship, Object> getter;
+
+    ShipField(String fieldName, Function<Ship, Object> getter) {
+        this.fieldName = fieldName;
+        this.getter = getter;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public Object get(Ship ship) {
+        return getter.apply(ship);
+    }
+
+    public static ShipField of(String fieldName) {
+        for (ShipField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new BadParamsException();
+    }
+
+    // A comma separated list of attribute names, e.g. "name,planet,rating". id always comes first.
+    public static List<ShipField> parse(String fields) {
+        List<ShipField> parsed = new ArrayList<>();
+        parsed.add(ID);
+        for (String fieldName : fields.split(",")) {
+            ShipField field = of(fieldName.trim());
+            if (!parsed.contains(field)) {
+                parsed.add(field);
+            }
+        }
+        return parsed;
+    }
+}
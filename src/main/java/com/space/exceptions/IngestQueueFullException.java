@@ -0,0 +1,8 @@
+package com.space.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class IngestQueueFullException extends RuntimeException {
+}
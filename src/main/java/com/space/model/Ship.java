@@ -1,13 +1,32 @@
 package com.space.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
-@Table(name = "ship")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "ship", indexes = {
+        @Index(name = "idx_ship_speed", columnList = "speed, id"),
+        @Index(name = "idx_ship_prodDate", columnList = "prodDate, id"),
+        @Index(name = "idx_ship_rating", columnList = "rating, id"),
+        @Index(name = "idx_ship_crewSize", columnList = "crewSize"),
+        @Index(name = "idx_ship_shipType_isUsed", columnList = "shipType, isUsed, id")
+})
 public class Ship {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "ship_id")
+    @GenericGenerator(name = "ship_id", strategy = "com.space.model.ShipIdGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "ship_seq"),
+            @Parameter(name = "force_table_use", value = "true"),
+            @Parameter(name = "optimizer", value = "pooled-lo"),
+            @Parameter(name = "increment_size", value = "50")
+    })
     @Column(name = "id")
     private Long id;
 
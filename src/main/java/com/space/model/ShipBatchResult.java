@@ -0,0 +1,23 @@
+package com.space.model;
+
+import java.util.List;
+
+public class ShipBatchResult {
+
+    private final List<Ship> created;
+    private final List<Integer> rejected;
+
+    public ShipBatchResult(List<Ship> created, List<Integer> rejected) {
+        this.created = created;
+        this.rejected = rejected;
+    }
+
+    public List<Ship> getCreated() {
+        return created;
+    }
+
+    // Positions in the request array of the ships that failed validation.
+    public List<Integer> getRejected() {
+        return rejected;
+    }
+}
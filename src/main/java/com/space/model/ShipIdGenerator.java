@@ -0,0 +1,29 @@
+package com.space.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Table-backed pooled id generator for {@link Ship}. Unlike IDENTITY it hands out ids before the
+ * INSERT, so Hibernate can batch inserts. The block size can be overridden with the
+ * {@value #INCREMENT_SIZE_SETTING} Hibernate setting.
+ */
+public class ShipIdGenerator extends SequenceStyleGenerator {
+
+    public static final String INCREMENT_SIZE_SETTING = "cosmoport.ship.id.increment_size";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object incrementSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings().get(INCREMENT_SIZE_SETTING);
+        if (incrementSize != null) {
+            params.setProperty(INCREMENT_PARAM, incrementSize.toString());
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+}
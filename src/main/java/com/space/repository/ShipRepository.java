@@ -2,6 +2,23 @@ package com.space.repository;
 
 import com.space.model.Ship;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface ShipRepository extends JpaRepository<Ship, Long> {
+import java.util.Collection;
+import java.util.List;
+
+public interface ShipRepository extends JpaRepository<Ship, Long>, JpaSpecificationExecutor<Ship>,
+        ShipRepositoryCustom {
+
+    // The committed rows, read on the primary in a transaction of their own: after-commit listeners
+    // would otherwise join the finished transaction and get the entities of its persistence context.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    List<Ship> findByIdIn(Collection<Long> ids);
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("select s from Ship s")
+    List<Ship> findAllCommitted();
 }
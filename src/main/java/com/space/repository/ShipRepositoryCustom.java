@@ -0,0 +1,27 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.Tuple;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ShipRepositoryCustom {
+
+    List<Ship> findPage(Specification<Ship> specification, Pageable pageable);
+
+    List<Tuple> findPage(Specification<Ship> specification, Pageable pageable, List<String> attributes);
+
+    int deleteMatching(ShipFilter filter);
+
+    int updateMatching(ShipFilter filter, Ship values);
+
+    int updateEachMatching(ShipFilter filter, int chunkSize, Consumer<Ship> update);
+
+    void scanMatching(ShipFilter filter, int fetchSize, Consumer<Ship> consumer);
+
+    Long reserveId();
+}
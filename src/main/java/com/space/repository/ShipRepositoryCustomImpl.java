@@ -0,0 +1,170 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class ShipRepositoryCustomImpl implements ShipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Unlike JpaSpecificationExecutor.findAll(Specification, Pageable) this does not issue
+    // a second COUNT query: the list endpoint only needs the rows of the requested page.
+    // The query is cacheable, which only takes effect when the Hibernate query cache is on.
+    @Override
+    public List<Ship> findPage(Specification<Ship> specification, Pageable pageable) {
+        if (pageable.getOffset() > Integer.MAX_VALUE) {
+            return new ArrayList<>();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(toOrders(pageable.getSort(), root, cb));
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .setHint(QueryHints.CACHEABLE, true)
+                .getResultList();
+    }
+
+    // Same page, but only the given attributes are selected, each aliased by its name.
+    @Override
+    public List<Tuple> findPage(Specification<Ship> specification, Pageable pageable, List<String> attributes) {
+        if (pageable.getOffset() > Integer.MAX_VALUE) {
+            return new ArrayList<>();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Ship> root = query.from(Ship.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String attribute : attributes) {
+            selections.add(root.get(attribute).alias(attribute));
+        }
+        query.multiselect(selections).orderBy(toOrders(pageable.getSort(), root, cb));
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    @Override
+    public int deleteMatching(ShipFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Ship> delete = cb.createCriteriaDelete(Ship.class);
+        Root<Ship> root = delete.from(Ship.class);
+        delete.where(ShipSpecifications.predicates(filter, root, cb).toArray(new Predicate[0]));
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    // Sets every non-null attribute of values on the matching rows in a single UPDATE.
+    @Override
+    public int updateMatching(ShipFilter filter, Ship values) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Ship> update = cb.createCriteriaUpdate(Ship.class);
+        Root<Ship> root = update.from(Ship.class);
+        setIfPresent(update, "name", values.getName());
+        setIfPresent(update, "planet", values.getPlanet());
+        setIfPresent(update, "shipType", values.getShipType());
+        setIfPresent(update, "prodDate", values.getProdDate());
+        setIfPresent(update, "isUsed", values.getUsed());
+        setIfPresent(update, "speed", values.getSpeed());
+        setIfPresent(update, "crewSize", values.getCrewSize());
+        setIfPresent(update, "rating", values.getRating());
+        update.where(ShipSpecifications.predicates(filter, root, cb).toArray(new Predicate[0]));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    // For changes that cannot be expressed in SQL: matching ships are loaded in id order, chunk by
+    // chunk, and the persistence context is flushed (as JDBC batches) and cleared after each chunk.
+    @Override
+    public int updateEachMatching(ShipFilter filter, int chunkSize, Consumer<Ship> update) {
+        Pageable chunk = PageRequest.of(0, chunkSize, Sort.by("id"));
+        Specification<Ship> specification = ShipSpecifications.matching(filter);
+        int updated = 0;
+        List<Ship> ships = findPage(specification, chunk);
+        while (!ships.isEmpty()) {
+            ships.forEach(update);
+            updated += ships.size();
+            long lastId = ships.get(ships.size() - 1).getId();
+            entityManager.flush();
+            entityManager.clear();
+            ships = ships.size() < chunkSize ? new ArrayList<>()
+                    : findPage(specification.and(ShipSpecifications.seekAfter("id", null, lastId)), chunk);
+        }
+        return updated;
+    }
+
+    // Walks the matching ships in id order over a forward-only cursor. The entities are read-only and
+    // the persistence context is cleared every fetchSize ships, so memory does not grow with the table.
+    @Override
+    public void scanMatching(ShipFilter filter, int fetchSize, Consumer<Ship> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        query.select(root)
+                .where(ShipSpecifications.predicates(filter, root, cb).toArray(new Predicate[0]))
+                .orderBy(cb.asc(root.get("id")));
+        org.hibernate.query.Query<?> scan = entityManager.createQuery(query).unwrap(org.hibernate.query.Query.class);
+        scan.setFetchSize(fetchSize);
+        scan.setReadOnly(true);
+        scan.setCacheMode(CacheMode.IGNORE);
+        try (ScrollableResults results = scan.scroll(ScrollMode.FORWARD_ONLY)) {
+            int scanned = 0;
+            while (results.next()) {
+                consumer.accept((Ship) results.get(0));
+                if (++scanned % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    // Takes the next id from the Ship id generator without inserting anything, for ships that are
+    // written later by plain JDBC.
+    @Override
+    public Long reserveId() {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Ship.class);
+        return (Long) persister.getIdentifierGenerator().generate(session, null);
+    }
+
+    private static <T> void setIfPresent(CriteriaUpdate<Ship> update, String attribute, T value) {
+        if (value != null) {
+            update.set(attribute, value);
+        }
+    }
+}
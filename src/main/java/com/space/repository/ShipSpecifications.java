@@ -0,0 +1,113 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ShipSpecifications {
+
+    private static final char LIKE_ESCAPE = '!';
+
+    private ShipSpecifications() {
+    }
+
+    public static Specification<Ship> matching(ShipFilter filter) {
+        return (root, query, cb) -> cb.and(predicates(filter, root, cb).toArray(new Predicate[0]));
+    }
+
+    public static Specification<Ship> hasId(long id) {
+        return (root, query, cb) -> cb.equal(root.get("id"), id);
+    }
+
+    // Seek predicate for keyset paging: (attribute, id) > (value, lastId), spelled out as an OR
+    // because row-value comparison is not available in the criteria API.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Ship> seekAfter(String attribute, Comparable value, long lastId) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            if ("id".equals(attribute)) {
+                return cb.greaterThan(id, lastId);
+            }
+            Path<Comparable> path = root.get(attribute);
+            return cb.or(cb.greaterThan(path, value),
+                    cb.and(cb.equal(path, value), cb.greaterThan(id, lastId)));
+        };
+    }
+
+    static List<Predicate> predicates(ShipFilter filter, Root<Ship> root, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getName() != null) {
+            predicates.add(cb.like(root.get("name"), containsPattern(filter.getName()), LIKE_ESCAPE));
+        }
+        if (filter.getPlanet() != null) {
+            predicates.add(cb.like(root.get("planet"), containsPattern(filter.getPlanet()), LIKE_ESCAPE));
+        }
+        if (filter.getShipType() != null) {
+            predicates.add(cb.equal(root.get("shipType"), filter.getShipType()));
+        }
+        if (filter.getAfter() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("prodDate"), firstDateNotBefore(filter.getAfter())));
+        }
+        if (filter.getBefore() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("prodDate"), lastDateNotAfter(filter.getBefore())));
+        }
+        if (filter.getUsed() != null) {
+            predicates.add(cb.equal(root.get("isUsed"), filter.getUsed()));
+        }
+        if (filter.getMinSpeed() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("speed"), filter.getMinSpeed()));
+        }
+        if (filter.getMaxSpeed() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("speed"), filter.getMaxSpeed()));
+        }
+        if (filter.getMinCrewSize() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("crewSize"), filter.getMinCrewSize()));
+        }
+        if (filter.getMaxCrewSize() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("crewSize"), filter.getMaxCrewSize()));
+        }
+        if (filter.getMinRating() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("rating"), filter.getMinRating()));
+        }
+        if (filter.getMaxRating() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("rating"), filter.getMaxRating()));
+        }
+        return predicates;
+    }
+
+    private static String containsPattern(String value) {
+        StringBuilder pattern = new StringBuilder(value.length() + 2).append('%');
+        for (char c : value.toCharArray()) {
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    // prodDate is a DATE column, so a millisecond bound has to be moved onto a day boundary
+    // to keep the inclusive "prodDate.getTime() >= after" semantics.
+    private static java.sql.Date firstDateNotBefore(long millis) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+        if (date.atStartOfDay(zone).toInstant().toEpochMilli() < millis) {
+            date = date.plusDays(1);
+        }
+        return java.sql.Date.valueOf(date);
+    }
+
+    private static java.sql.Date lastDateNotAfter(long millis) {
+        return java.sql.Date.valueOf(Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate());
+    }
+}
@@ -0,0 +1,80 @@
+package com.space.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Allocation-free replacements for the Calendar year lookup and the String.format("%.2f")
+ * rounding used by validation and rating. Both return exactly what the old code returned.
+ */
+final class ShipCalculations {
+
+    static final int MIN_PROD_YEAR = 2800;
+    static final int MAX_PROD_YEAR = 3019;
+
+    // Instants at which each year from MIN_PROD_YEAR to MAX_PROD_YEAR + 1 starts in the default
+    // time zone, so the year of any valid prodDate is a binary search away.
+    private static final long[] YEAR_STARTS = yearStarts(ZoneId.systemDefault());
+
+    private ShipCalculations() {
+    }
+
+    // Same as Calendar.get(Calendar.YEAR) in the default time zone.
+    static int year(long millis) {
+        if (millis < YEAR_STARTS[0] || millis >= YEAR_STARTS[YEAR_STARTS.length - 1]) {
+            return calendarYear(millis);
+        }
+        int position = Arrays.binarySearch(YEAR_STARTS, millis);
+        return MIN_PROD_YEAR + (position >= 0 ? position : -position - 2);
+    }
+
+    static double rating(double speed, boolean isUsed, int prodYear) {
+        double usedCoefficient = isUsed ? 0.5 : 1;
+        return round2((80 * speed * usedCoefficient) / (MAX_PROD_YEAR - prodYear + 1));
+    }
+
+    // Same as Double.parseDouble(String.format("%.2f", value)): HALF_UP applied to the shortest
+    // decimal representation of the value. Decimals and the doubles nearest to them are ordered
+    // alike, so comparing against the nearest doubles of k/100 and (2k+1)/200 is enough.
+    static double round2(double value) {
+        if (value == 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+            return value;
+        }
+        if (value < 0) {
+            return -round2(-value);
+        }
+        if (value >= 1e12) {
+            return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+        }
+        long hundredths = (long) (value * 100);
+        while (hundredths / 100.0 > value) {
+            hundredths--;
+        }
+        while ((hundredths + 1) / 100.0 <= value) {
+            hundredths++;
+        }
+        if (value >= (2 * hundredths + 1) / 200.0) {
+            hundredths++;
+        }
+        return hundredths / 100.0;
+    }
+
+    private static int calendarYear(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(new Date(millis));
+        return calendar.get(Calendar.YEAR);
+    }
+
+    private static long[] yearStarts(ZoneId zone) {
+        long[] starts = new long[MAX_PROD_YEAR - MIN_PROD_YEAR + 2];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = LocalDate.of(MIN_PROD_YEAR + i, 1, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        return starts;
+    }
+}
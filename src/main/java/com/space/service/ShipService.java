@@ -1,20 +1,34 @@
 package com.space.service;
 
+import com.space.controller.ShipCursor;
+import com.space.controller.ShipField;
 import com.space.controller.ShipOrder;
 import com.space.model.Ship;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipFilter;
 import com.space.model.ShipType;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ShipService {
 
     Ship addShip(Ship ship);
 
+    ShipBatchResult addShips(List<Ship> ships);
+
+    Integer updateShips(Ship ship, ShipFilter filter);
+
+    Integer deleteShips(ShipFilter filter);
+
     void deleteShip(String id);
 
     Ship updateShip(Ship ship, String id);
 
     Ship getShip(String id);
 
+    Map<String, Object> getShip(String id, List<ShipField> fields);
+
     Integer getShipsCount(String name, String planet, ShipType shipType, Long after, Long before,
                           Boolean isUsed, Double minSpeed, Double maxSpeed, Integer minCrewSize,
                           Integer maxCrewSize, Double minRating, Double maxRating);
@@ -23,4 +37,18 @@ public interface ShipService {
                             Boolean isUsed, Double minSpeed, Double maxSpeed, Integer minCrewSize,
                             Integer maxCrewSize, Double minRating, Double maxRating,
                             ShipOrder order, Integer pageNumber, Integer pageSize);
+
+    Integer getShipsCount(ShipFilter filter);
+
+    List<Ship> getShipsList(ShipFilter filter, ShipOrder order, Integer pageNumber, Integer pageSize);
+
+    List<Map<String, Object>> getShipsList(ShipFilter filter, ShipOrder order, Integer pageNumber, Integer pageSize,
+                                           List<ShipField> fields);
+
+    List<Ship> getShipsListAfter(ShipFilter filter, ShipOrder order, ShipCursor cursor, Integer pageSize);
+
+    List<Map<String, Object>> getShipsListAfter(ShipFilter filter, ShipOrder order, ShipCursor cursor, Integer pageSize,
+                                                List<ShipField> fields);
+
+    void exportShips(ShipFilter filter, Consumer<Ship> consumer);
 }
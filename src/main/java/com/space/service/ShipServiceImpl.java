@@ -1,56 +1,209 @@
 package com.space.service;
 
+import com.space.controller.ShipCursor;
+import com.space.controller.ShipField;
 import com.space.controller.ShipOrder;
 import com.space.model.Ship;
+import com.space.model.ShipBatchResult;
+import com.space.model.ShipFilter;
 import com.space.model.ShipType;
 import com.space.repository.ShipRepository;
+import com.space.repository.ShipSpecifications;
 import com.space.exceptions.BadParamsException;
 import com.space.exceptions.ShipNotFoundException;
+import com.space.service.cache.ShipQueryCache;
+import com.space.service.cache.ShipQueryCoalescer;
+import com.space.service.index.ShipIndex;
+import com.space.service.ingest.ShipIngestQueue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.Tuple;
 import java.sql.Date;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
 public class ShipServiceImpl implements ShipService{
 
     private ShipRepository shipRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private ShipIndex shipIndex;
+    private ShipQueryCache queryCache;
+    private ShipQueryCoalescer queryCoalescer;
+    private ShipIngestQueue ingestQueue;
+    private int bulkChunkSize = 500;
+    private int exportFetchSize = 500;
+    private long ingestAwaitMillis = 5000;
 
     @Autowired
     public void setShipRepository(ShipRepository shipRepository) {
         this.shipRepository = shipRepository;
     }
 
+    @Autowired
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Autowired(required = false)
+    public void setShipIndex(ShipIndex shipIndex) {
+        this.shipIndex = shipIndex;
+    }
+
+    @Autowired(required = false)
+    public void setQueryCache(ShipQueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    @Autowired(required = false)
+    public void setQueryCoalescer(ShipQueryCoalescer queryCoalescer) {
+        this.queryCoalescer = queryCoalescer;
+    }
+
+    @Autowired(required = false)
+    public void setIngestQueue(ShipIngestQueue ingestQueue) {
+        this.ingestQueue = ingestQueue;
+    }
+
+    @Value("${cosmoport.ship.bulk.chunk-size:500}")
+    public void setBulkChunkSize(int bulkChunkSize) {
+        this.bulkChunkSize = bulkChunkSize;
+    }
+
+    @Value("${cosmoport.ship.export.fetch-size:500}")
+    public void setExportFetchSize(int exportFetchSize) {
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    @Value("${cosmoport.ingest.await-timeout:5000}")
+    public void setIngestAwaitMillis(long ingestAwaitMillis) {
+        this.ingestAwaitMillis = ingestAwaitMillis;
+    }
+
     public Ship addShip(Ship ship) {
+        prepareNewShip(ship);
+        if (ingestQueue != null) {
+            ship.setId(shipRepository.reserveId());
+            ingestQueue.enqueue(ship);
+            return ship;
+        }
+        Ship savedShip = shipRepository.saveAndFlush(ship);
+        eventPublisher.publishEvent(ShipsChangedEvent.saved(savedShip));
+        return savedShip;
+    }
+
+    // Invalid ships are reported by position and skipped; the valid ones are inserted together
+    // in JDBC batches when the transaction flushes.
+    public ShipBatchResult addShips(List<Ship> ships) {
+        List<Ship> validShips = new ArrayList<>();
+        List<Integer> rejected = new ArrayList<>();
+        for (int i = 0; i < ships.size(); i++) {
+            Ship ship = ships.get(i);
+            try {
+                if (ship == null) {
+                    throw new BadParamsException();
+                }
+                prepareNewShip(ship);
+            } catch (BadParamsException e) {
+                rejected.add(i);
+                continue;
+            }
+            ship.setId(null);
+            validShips.add(ship);
+        }
+        List<Ship> savedShips = shipRepository.saveAll(validShips);
+        shipRepository.flush();
+        if (!savedShips.isEmpty()) {
+            eventPublisher.publishEvent(new ShipsChangedEvent(savedShips, Collections.emptyList()));
+        }
+        return new ShipBatchResult(savedShips, rejected);
+    }
+
+    private void prepareNewShip(Ship ship) {
         if (ship.getUsed() == null) {
             ship.setUsed(false);
         }
         checkNullParams(ship);
         checkShipParams(ship);
-        double rating = getShipRating(ship);
-        ship.setRating(rating);
-        double roundedShipSpeed = Double.parseDouble(String.format("%.2f", ship.getSpeed()).replaceAll(",", "."));
-        ship.setSpeed(roundedShipSpeed);
-        return shipRepository.saveAndFlush(ship);
+        ship.setRating(getShipRating(ship));
+        ship.setSpeed(ShipCalculations.round2(ship.getSpeed()));
     }
 
     public void deleteShip(String id) {
         Long shipId = checkIdForValidAndParseIt(id);
-        if (!shipRepository.existsById(shipId)) {
-            throw new ShipNotFoundException();
-        }
-        shipRepository.deleteById(shipId);
+        awaitIngested(shipId);
+        Ship ship = shipRepository.findById(shipId).orElseThrow(ShipNotFoundException::new);
+        shipRepository.delete(ship);
+        eventPublisher.publishEvent(ShipsChangedEvent.deleted(shipId));
     }
 
     public Ship updateShip(Ship ship, String id) {
         Long shipId = checkIdForValidAndParseIt(id);
-        if (!shipRepository.existsById(shipId)) {
-            throw new ShipNotFoundException();
-        }
+        awaitIngested(shipId);
+        Ship needToBeUpdateShip = shipRepository.findById(shipId).orElseThrow(ShipNotFoundException::new);
         checkShipParams(ship);
-        Ship needToBeUpdateShip = shipRepository.findById(shipId).get();
+        applyChanges(ship, needToBeUpdateShip);
+        Ship savedShip = shipRepository.saveAndFlush(needToBeUpdateShip);
+        eventPublisher.publishEvent(ShipsChangedEvent.saved(savedShip));
+        return savedShip;
+    }
+
+    public Integer updateShips(Ship ship, ShipFilter filter) {
+        checkBulkFilter(filter);
+        checkShipParams(ship);
+        boolean ratingChanges = ship.getSpeed() != null || ship.getUsed() != null || ship.getProdDate() != null;
+        if (!ratingChanges && ship.getName() == null && ship.getPlanet() == null
+                && ship.getShipType() == null && ship.getCrewSize() == null) {
+            throw new BadParamsException();
+        }
+        int updated;
+        if (ship.getSpeed() != null && ship.getUsed() != null && ship.getProdDate() != null) {
+            ship.setRating(getShipRating(ship));
+            updated = shipRepository.updateMatching(filter, ship);
+        } else if (!ratingChanges) {
+            ship.setRating(null);
+            updated = shipRepository.updateMatching(filter, ship);
+        } else {
+            // The new rating depends on values of each row, so the rows are rated in Java as in updateShip.
+            updated = shipRepository.updateEachMatching(filter, bulkChunkSize, target -> applyChanges(ship, target));
+        }
+        if (updated > 0) {
+            eventPublisher.publishEvent(ShipsChangedEvent.bulk());
+        }
+        return updated;
+    }
+
+    public Integer deleteShips(ShipFilter filter) {
+        checkBulkFilter(filter);
+        int deleted = shipRepository.deleteMatching(filter);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(ShipsChangedEvent.bulk());
+        }
+        return deleted;
+    }
+
+    // A ship still in the ingest queue has no row yet, so changing it waits for its group commit.
+    private void awaitIngested(Long id) {
+        if (ingestQueue == null) {
+            return;
+        }
+        try {
+            ingestQueue.awaitWritten(id, ingestAwaitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void applyChanges(Ship ship, Ship needToBeUpdateShip) {
         if (ship.getName() != null) {
             needToBeUpdateShip.setName(ship.getName());
         }
@@ -73,129 +226,210 @@ public class ShipServiceImpl implements ShipService{
             needToBeUpdateShip.setCrewSize(ship.getCrewSize());
         }
         needToBeUpdateShip.setRating(getShipRating(needToBeUpdateShip));
-        return shipRepository.saveAndFlush(needToBeUpdateShip);
     }
 
+    @Transactional(readOnly = true)
     public Ship getShip(String id) {
         Long shipId = checkIdForValidAndParseIt(id);
-        if (!shipRepository.existsById(shipId)) {
+        if (ingestQueue != null) {
+            Ship pendingShip = ingestQueue.getPending(shipId);
+            if (pendingShip != null) {
+                return pendingShip;
+            }
+        }
+        return shipRepository.findById(shipId).orElseThrow(ShipNotFoundException::new);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getShip(String id, List<ShipField> fields) {
+        Long shipId = checkIdForValidAndParseIt(id);
+        if (ingestQueue != null) {
+            Ship pendingShip = ingestQueue.getPending(shipId);
+            if (pendingShip != null) {
+                return toRow(pendingShip, fields);
+            }
+        }
+        List<Tuple> tuples = shipRepository.findPage(ShipSpecifications.hasId(shipId), PageRequest.of(0, 1),
+                attributes(fields));
+        if (tuples.isEmpty()) {
             throw new ShipNotFoundException();
         }
-        return shipRepository.findById(shipId).get();
+        return toRow(tuples.get(0), fields);
     }
 
+    // Reads join a transaction only when they reach the repository, so a cache hit holds no connection.
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Integer getShipsCount(String name, String planet, ShipType shipType, Long after, Long before,
                                  Boolean isUsed, Double minSpeed, Double maxSpeed, Integer minCrewSize,
                                  Integer maxCrewSize, Double minRating, Double maxRating) {
-        return getFilteredShipsList(name, planet, shipType, after, before, isUsed, minSpeed,
-                maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating).size();
+        return getShipsCount(new ShipFilter(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Integer getShipsCount(ShipFilter filter) {
+        if (queryCache != null) {
+            return queryCache.getShipsCount(filter, () -> coalescedCount(filter));
+        }
+        return coalescedCount(filter);
+    }
+
+    // Identical counts and pages that miss the cache at the same time run only once.
+    private Integer coalescedCount(ShipFilter filter) {
+        if (queryCoalescer != null) {
+            return queryCoalescer.getShipsCount(filter, () -> countShips(filter));
+        }
+        return countShips(filter);
+    }
+
+    private Integer countShips(ShipFilter filter) {
+        if (shipIndex != null) {
+            return shipIndex.count(filter);
+        }
+        return Math.toIntExact(shipRepository.count(ShipSpecifications.matching(filter)));
     }
 
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Ship> getShipsList(String name, String planet, ShipType shipType, Long after, Long before,
                                    Boolean isUsed, Double minSpeed, Double maxSpeed, Integer minCrewSize,
                                    Integer maxCrewSize, Double minRating, Double maxRating,
                                    ShipOrder order, Integer pageNumber, Integer pageSize) {
+        return getShipsList(new ShipFilter(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed,
+                minCrewSize, maxCrewSize, minRating, maxRating), order, pageNumber, pageSize);
+    }
 
-        List<Ship> filteredShipsList = getFilteredShipsList(name, planet, shipType, after, before, isUsed, minSpeed,
-                maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
-        switch (order) {
-            case ID:
-                Collections.sort(filteredShipsList, (ship1, ship2) -> {
-                    if (ship1.getId() > ship2.getId()) return 1;
-                    else if (ship1.getId() < ship2.getId()) return -1;
-                    return 0;
-                });
-                break;
-            case SPEED:
-                Collections.sort(filteredShipsList, (ship1, ship2) -> {
-                    if (ship1.getSpeed() > ship2.getSpeed()) return 1;
-                    else if (ship1.getSpeed() < ship2.getSpeed()) return -1;
-                    return 0;
-                });
-                break;
-            case RATING:
-                Collections.sort(filteredShipsList, (ship1, ship2) -> {
-                    if (ship1.getRating() > ship2.getRating()) return 1;
-                    else if (ship1.getRating() < ship2.getRating()) return -1;
-                    return 0;
-                });
-                break;
-            case DATE:
-                Collections.sort(filteredShipsList, (ship1, ship2) -> {
-                    if (ship1.getProdDate().getTime() > ship2.getProdDate().getTime()) return 1;
-                    else if (ship1.getProdDate().getTime() < ship2.getProdDate().getTime()) return -1;
-                    return 0;
-                });
-                break;
-        }
-        List<Ship> resultShipsList = new ArrayList<>();
-        for (int i = 0; i < pageSize; i++) {
-            try {
-                resultShipsList.add(filteredShipsList.get(i + pageNumber * pageSize));
-            } catch (IndexOutOfBoundsException e) {
-                return resultShipsList;
-            }
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Ship> getShipsList(ShipFilter filter, ShipOrder order, Integer pageNumber, Integer pageSize) {
+        if (pageNumber < 0 || pageSize <= 0) {
+            return new ArrayList<>();
         }
-        return resultShipsList;
-    }
-
-    private List<Ship> getFilteredShipsList(String name, String planet, ShipType shipType, Long after,
-                                            Long before, Boolean isUsed, Double minSpeed, Double maxSpeed,
-                                            Integer minCrewSize, Integer maxCrewSize, Double minRating,
-                                            Double maxRating) {
-        List<Ship> filteredShipsList = shipRepository.findAll();
-        for (int i = 0; i < filteredShipsList.size(); ) {
-            boolean isOkForRequest = true;
-
-            long shipProdDateInMillis = filteredShipsList.get(i).getProdDate().getTime();
-//            Calendar calendar = Calendar.getInstance();
-//            calendar.setTime(filteredShipsList.get(i).getProdDate());
-//            int shipProdYear = calendar.get(Calendar.YEAR);
-//            int beforeYearRequest = -1;
-//            int afterYearRequest = -1;
-//            if (before != null) {
-//                calendar.setTime(new Date(before));
-//                beforeYearRequest = calendar.get(Calendar.YEAR);
-//            }
-//            if (after != null) {
-//                calendar.setTime(new Date(after));
-//                afterYearRequest = calendar.get(Calendar.YEAR);
-//            }
-
-            if (name != null && !filteredShipsList.get(i).getName().contains(name)) isOkForRequest = false;
-            if (planet != null && !filteredShipsList.get(i).getPlanet().contains(planet)) isOkForRequest = false;
-            if (shipType != null && filteredShipsList.get(i).getShipType() != shipType) isOkForRequest = false;
-//            if (after != null && shipProdYear < afterYearRequest) isOkForRequest = false;
-//            if (before != null && shipProdYear > beforeYearRequest) isOkForRequest = false;
-            if (after != null && shipProdDateInMillis < after) isOkForRequest = false;
-            if (before != null && shipProdDateInMillis > before) isOkForRequest = false;
-            if (isUsed != null && !filteredShipsList.get(i).getUsed().equals(isUsed)) isOkForRequest = false;
-            if (minSpeed != null && filteredShipsList.get(i).getSpeed() < minSpeed) isOkForRequest = false;
-            if (maxSpeed != null && filteredShipsList.get(i).getSpeed() > maxSpeed) isOkForRequest = false;
-            if (minCrewSize != null && filteredShipsList.get(i).getCrewSize() < minCrewSize) isOkForRequest = false;
-            if (maxCrewSize != null && filteredShipsList.get(i).getCrewSize() > maxCrewSize) isOkForRequest = false;
-            if (minRating != null && filteredShipsList.get(i).getRating() < minRating) isOkForRequest = false;
-            if (maxRating != null && filteredShipsList.get(i).getRating() > maxRating) isOkForRequest = false;
-
-            if (isOkForRequest) {
-                i++;
-            }
-            else {
-                filteredShipsList.remove(i);
+        return cachedShips(filter, order, pageNumber, pageSize);
+    }
+
+    // Only the given columns are read from the database. The index and the result cache hold
+    // whole ships anyway, so with either of them the page is projected in memory instead.
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Map<String, Object>> getShipsList(ShipFilter filter, ShipOrder order, Integer pageNumber,
+                                                  Integer pageSize, List<ShipField> fields) {
+        if (pageNumber < 0 || pageSize <= 0) {
+            return new ArrayList<>();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (shipIndex != null || queryCache != null) {
+            for (Ship ship : cachedShips(filter, order, pageNumber, pageSize)) {
+                rows.add(toRow(ship, fields));
             }
+            return rows;
+        }
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, getShipsSort(order));
+        for (Tuple tuple : shipRepository.findPage(ShipSpecifications.matching(filter), pageable, attributes(fields))) {
+            rows.add(toRow(tuple, fields));
+        }
+        return rows;
+    }
+
+    private List<Ship> cachedShips(ShipFilter filter, ShipOrder order, Integer pageNumber, Integer pageSize) {
+        if (queryCache != null) {
+            return queryCache.getShipsList(filter, order, pageNumber, pageSize,
+                    () -> coalescedShips(filter, order, pageNumber, pageSize));
+        }
+        return coalescedShips(filter, order, pageNumber, pageSize);
+    }
+
+    private List<Ship> coalescedShips(ShipFilter filter, ShipOrder order, Integer pageNumber, Integer pageSize) {
+        if (queryCoalescer != null) {
+            return queryCoalescer.getShipsList(filter, order, pageNumber, pageSize,
+                    () -> findShips(filter, order, pageNumber, pageSize));
+        }
+        return findShips(filter, order, pageNumber, pageSize);
+    }
+
+    private List<Ship> findShips(ShipFilter filter, ShipOrder order, Integer pageNumber, Integer pageSize) {
+        if (shipIndex != null) {
+            return shipIndex.find(filter, order, pageNumber, pageSize);
+        }
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, getShipsSort(order));
+        return shipRepository.findPage(ShipSpecifications.matching(filter), pageable);
+    }
+
+    public List<Ship> getShipsListAfter(ShipFilter filter, ShipOrder order, ShipCursor cursor, Integer pageSize) {
+        if (pageSize <= 0) {
+            return new ArrayList<>();
+        }
+        return shipRepository.findPage(seekSpecification(filter, order, cursor),
+                PageRequest.of(0, pageSize, getShipsSort(order)));
+    }
+
+    public List<Map<String, Object>> getShipsListAfter(ShipFilter filter, ShipOrder order, ShipCursor cursor,
+                                                       Integer pageSize, List<ShipField> fields) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (pageSize <= 0) {
+            return rows;
+        }
+        for (Tuple tuple : shipRepository.findPage(seekSpecification(filter, order, cursor),
+                PageRequest.of(0, pageSize, getShipsSort(order)), attributes(fields))) {
+            rows.add(toRow(tuple, fields));
+        }
+        return rows;
+    }
+
+    private Specification<Ship> seekSpecification(ShipFilter filter, ShipOrder order, ShipCursor cursor) {
+        Specification<Ship> specification = ShipSpecifications.matching(filter);
+        if (cursor != null) {
+            specification = specification.and(ShipSpecifications.seekAfter(order.getFieldName(),
+                    cursor.getSortValue(), cursor.getId()));
         }
-        return filteredShipsList;
+        return specification;
+    }
+
+    private static List<String> attributes(List<ShipField> fields) {
+        List<String> attributes = new ArrayList<>();
+        for (ShipField field : fields) {
+            attributes.add(field.getFieldName());
+        }
+        return attributes;
+    }
+
+    private static Map<String, Object> toRow(Tuple tuple, List<ShipField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (ShipField field : fields) {
+            row.put(field.getFieldName(), tuple.get(field.getFieldName()));
+        }
+        return row;
+    }
+
+    private static Map<String, Object> toRow(Ship ship, List<ShipField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (ShipField field : fields) {
+            row.put(field.getFieldName(), field.get(ship));
+        }
+        return row;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportShips(ShipFilter filter, Consumer<Ship> consumer) {
+        shipRepository.scanMatching(filter, exportFetchSize, consumer);
+    }
+
+    // id is always the last sort key so that ships with equal speed, date or rating keep a stable order
+    private Sort getShipsSort(ShipOrder order) {
+        if (order == ShipOrder.ID) {
+            return Sort.by(ShipOrder.ID.getFieldName());
+        }
+        return Sort.by(order.getFieldName(), ShipOrder.ID.getFieldName());
     }
 
     private double getShipRating(Ship ship) {
-        double usedCoefficient = (ship.getUsed()) ? 0.5 : 1;
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(ship.getProdDate());
-        int prodYear = calendar.get(Calendar.YEAR);
-        double rating = (80 * ship.getSpeed() * usedCoefficient) / (3019 - prodYear +1);
-        rating = Double.parseDouble(String.format("%.2f", rating).replaceAll(",", "."));
-        return rating;
+        int prodYear = ShipCalculations.year(ship.getProdDate().getTime());
+        return ShipCalculations.rating(ship.getSpeed(), ship.getUsed(), prodYear);
+    }
+
+    // A bulk change without any filter would touch every ship.
+    private void checkBulkFilter(ShipFilter filter) {
+        if (filter.isEmpty()) {
+            throw new BadParamsException();
+        }
     }
 
     private Long checkIdForValidAndParseIt(String id) {
@@ -224,10 +458,8 @@ public class ShipServiceImpl implements ShipService{
         if (ship.getCrewSize() != null && (ship.getCrewSize() < 1 || ship.getCrewSize() > 9999)) paramsIsOk = false;
         if (ship.getProdDate() != null && ship.getProdDate().getTime() < 0) paramsIsOk = false;
         if (ship.getProdDate() != null) {
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(ship.getProdDate());
-            int prodYear = calendar.get(Calendar.YEAR);
-            if (prodYear < 2800 || prodYear > 3019) paramsIsOk = false;
+            int prodYear = ShipCalculations.year(ship.getProdDate().getTime());
+            if (prodYear < ShipCalculations.MIN_PROD_YEAR || prodYear > ShipCalculations.MAX_PROD_YEAR) paramsIsOk = false;
         }
         if (!paramsIsOk) throw new BadParamsException();
     }
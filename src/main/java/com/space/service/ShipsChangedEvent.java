@@ -0,0 +1,48 @@
+package com.space.service;
+
+import com.space.model.Ship;
+
+import java.util.Collection;
+import java.util.Collections;
+
+public class ShipsChangedEvent {
+
+    private final Collection<Ship> saved;
+    private final Collection<Long> deleted;
+    private final boolean bulk;
+
+    public ShipsChangedEvent(Collection<Ship> saved, Collection<Long> deleted) {
+        this(saved, deleted, false);
+    }
+
+    private ShipsChangedEvent(Collection<Ship> saved, Collection<Long> deleted, boolean bulk) {
+        this.saved = saved;
+        this.deleted = deleted;
+        this.bulk = bulk;
+    }
+
+    public static ShipsChangedEvent saved(Ship ship) {
+        return new ShipsChangedEvent(Collections.singletonList(ship), Collections.emptyList());
+    }
+
+    public static ShipsChangedEvent deleted(Long id) {
+        return new ShipsChangedEvent(Collections.emptyList(), Collections.singletonList(id));
+    }
+
+    // A set-based statement changed rows that are not listed individually.
+    public static ShipsChangedEvent bulk() {
+        return new ShipsChangedEvent(Collections.emptyList(), Collections.emptyList(), true);
+    }
+
+    public Collection<Ship> getSaved() {
+        return saved;
+    }
+
+    public Collection<Long> getDeleted() {
+        return deleted;
+    }
+
+    public boolean isBulk() {
+        return bulk;
+    }
+}
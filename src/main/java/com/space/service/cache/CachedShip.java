@@ -0,0 +1,78 @@
+package com.space.service.cache;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.util.Date;
+
+// Read-only copy of a ship kept by ShipQueryCache. Cached pages are handed to every caller, so
+// they must neither share the loading transaction's entities nor be changed by a caller.
+final class CachedShip extends Ship {
+
+    CachedShip(Ship ship) {
+        super.setId(ship.getId());
+        super.setName(ship.getName());
+        super.setPlanet(ship.getPlanet());
+        super.setShipType(ship.getShipType());
+        super.setProdDate(ship.getProdDate() == null ? null : (Date) ship.getProdDate().clone());
+        super.setUsed(ship.getUsed());
+        super.setSpeed(ship.getSpeed());
+        super.setCrewSize(ship.getCrewSize());
+        super.setRating(ship.getRating());
+    }
+
+    @Override
+    public Date getProdDate() {
+        Date prodDate = super.getProdDate();
+        return prodDate == null ? null : (Date) prodDate.clone();
+    }
+
+    @Override
+    public void setId(Long id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setName(String name) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setPlanet(String planet) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setShipType(ShipType shipType) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setProdDate(Date prodDate) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setUsed(Boolean used) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setSpeed(Double speed) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setCrewSize(Integer crewSize) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setRating(Double rating) {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Cached ships are read-only");
+    }
+}
@@ -0,0 +1,74 @@
+package com.space.service.cache;
+
+import com.space.model.Ship;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate second-level and query cache statistics, exported over JMX when the "l2cache"
+ * profile turns those caches on.
+ */
+@Component
+@Profile("l2cache")
+@ManagedResource(objectName = "com.space:type=EntityCacheStatistics")
+public class EntityCacheStatistics {
+
+    private Statistics statistics;
+
+    @Autowired
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ManagedAttribute
+    public long getShipHits() {
+        return shipRegion().getHitCount();
+    }
+
+    @ManagedAttribute
+    public long getShipMisses() {
+        return shipRegion().getMissCount();
+    }
+
+    @ManagedAttribute
+    public long getShipPuts() {
+        return shipRegion().getPutCount();
+    }
+
+    @ManagedAttribute
+    public long getShipEntries() {
+        return shipRegion().getElementCountInMemory();
+    }
+
+    @ManagedAttribute
+    public long getQueryCacheHits() {
+        return statistics.getQueryCacheHitCount();
+    }
+
+    @ManagedAttribute
+    public long getQueryCacheMisses() {
+        return statistics.getQueryCacheMissCount();
+    }
+
+    @ManagedAttribute
+    public long getQueryCachePuts() {
+        return statistics.getQueryCachePutCount();
+    }
+
+    @ManagedAttribute
+    public long getEntityLoads() {
+        return statistics.getEntityLoadCount();
+    }
+
+    private CacheRegionStatistics shipRegion() {
+        return statistics.getDomainDataRegionStatistics(Ship.class.getName());
+    }
+}
@@ -0,0 +1,151 @@
+package com.space.service.cache;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import com.space.service.ShipsChangedEvent;
+import com.space.service.index.ShipIndexReloadedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of list and count results, keyed by the filter plus order and page. Pages hold
+ * read-only copies of the ships, never the loading transaction's entities. Every write
+ * bumps a global generation and drops all entries; a result computed while a write committed
+ * carries the old generation and is not stored. Enabled with the "cache" profile.
+ */
+@Component
+@Profile("cache")
+@ManagedResource(objectName = "com.space:type=ShipQueryCache")
+public class ShipQueryCache {
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Map<ShipQueryKey, Object> entries = new LinkedHashMap<ShipQueryKey, Object>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ShipQueryKey, Object> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private int maxSize = 1000;
+
+    @Value("${cosmoport.cache.ships.max-size:1000}")
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Ship> getShipsList(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize,
+                                   Supplier<List<Ship>> loader) {
+        return (List<Ship>) get(new ShipQueryKey(filter, order, pageNumber, pageSize), () -> {
+            List<Ship> page = new ArrayList<>();
+            for (Ship ship : loader.get()) {
+                page.add(new CachedShip(ship));
+            }
+            return Collections.unmodifiableList(page);
+        });
+    }
+
+    public Integer getShipsCount(ShipFilter filter, Supplier<Integer> loader) {
+        return (Integer) get(new ShipQueryKey(filter, null, 0, 0), loader);
+    }
+
+    // Runs after ShipIndex has applied the same event, so a reload never sees the old index.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipsChanged(ShipsChangedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onIndexReloaded(ShipIndexReloadedEvent event) {
+        invalidate();
+    }
+
+    @ManagedOperation
+    public void invalidate() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    @ManagedAttribute
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    @ManagedAttribute
+    public long getHits() {
+        return hits.get();
+    }
+
+    @ManagedAttribute
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @ManagedAttribute
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @ManagedAttribute
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @ManagedAttribute
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @ManagedAttribute
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private Object get(ShipQueryKey key, Supplier<?> loader) {
+        long startGeneration;
+        synchronized (entries) {
+            Object value = entries.get(key);
+            if (value != null) {
+                hits.incrementAndGet();
+                return value;
+            }
+            startGeneration = generation.get();
+        }
+        misses.incrementAndGet();
+        Object value = loader.get();
+        synchronized (entries) {
+            if (generation.get() == startGeneration) {
+                entries.put(key, value);
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,187 @@
+package com.space.service.cache;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import com.space.service.ShipsChangedEvent;
+import com.space.service.index.ShipIndexReloadedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single flight for list and count queries: the first caller for a key runs the query, and
+ * callers with the same key that arrive before it finishes wait for its result instead of
+ * running their own. Nothing is kept after the query returns. Every write drops the queries in
+ * flight, so a query started after a commit never shares a result read before it. Collapsed
+ * calls are counted in total and for the tracked-keys most recently used keys. Enabled with the
+ * "coalesce" profile.
+ */
+@Component
+@Profile("coalesce")
+@ManagedResource(objectName = "com.space:type=ShipQueryCoalescer")
+public class ShipQueryCoalescer {
+
+    private final ConcurrentMap<ShipQueryKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+    private final Map<ShipQueryKey, KeyStats> keyStats = new LinkedHashMap<ShipQueryKey, KeyStats>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ShipQueryKey, KeyStats> eldest) {
+            return size() > trackedKeys;
+        }
+    };
+
+    private int trackedKeys = 100;
+
+    @Value("${cosmoport.coalesce.tracked-keys:100}")
+    public void setTrackedKeys(int trackedKeys) {
+        this.trackedKeys = trackedKeys;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Ship> getShipsList(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize,
+                                   Supplier<List<Ship>> loader) {
+        return (List<Ship>) get(new ShipQueryKey(filter, order, pageNumber, pageSize),
+                () -> Collections.unmodifiableList(new ArrayList<>(loader.get())));
+    }
+
+    public Integer getShipsCount(ShipFilter filter, Supplier<Integer> loader) {
+        return (Integer) get(new ShipQueryKey(filter, null, 0, 0), loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipsChanged(ShipsChangedEvent event) {
+        inFlight.clear();
+    }
+
+    @EventListener
+    public void onIndexReloaded(ShipIndexReloadedEvent event) {
+        inFlight.clear();
+    }
+
+    @ManagedAttribute
+    public long getCalls() {
+        return calls.get();
+    }
+
+    @ManagedAttribute
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    @ManagedAttribute
+    public long getCollapsed() {
+        return collapsed.get();
+    }
+
+    @ManagedAttribute
+    public double getCollapseRate() {
+        long total = calls.get();
+        return total == 0 ? 0 : (double) collapsed.get() / total;
+    }
+
+    @ManagedAttribute
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    // "collapsed/calls key" for each tracked key, most collapsed first.
+    @ManagedAttribute
+    public String[] getCollapsedByKey() {
+        List<KeyStats> snapshot = new ArrayList<>();
+        synchronized (keyStats) {
+            for (KeyStats stats : keyStats.values()) {
+                snapshot.add(stats.copy());
+            }
+        }
+        snapshot.sort((a, b) -> Long.compare(b.collapsed, a.collapsed));
+        String[] lines = new String[snapshot.size()];
+        for (int i = 0; i < lines.length; i++) {
+            KeyStats stats = snapshot.get(i);
+            lines[i] = stats.collapsed + "/" + stats.calls + " " + stats.key;
+        }
+        return lines;
+    }
+
+    private Object get(ShipQueryKey key, Supplier<?> loader) {
+        calls.incrementAndGet();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+        record(key, running != null);
+        if (running != null) {
+            collapsed.incrementAndGet();
+            return join(running);
+        }
+        executions.incrementAndGet();
+        try {
+            Object value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    // Waiting callers get the exception of the query they shared.
+    private static Object join(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void record(ShipQueryKey key, boolean shared) {
+        synchronized (keyStats) {
+            KeyStats stats = keyStats.computeIfAbsent(key, KeyStats::new);
+            stats.calls++;
+            if (shared) {
+                stats.collapsed++;
+            }
+        }
+    }
+
+    private static final class KeyStats {
+        private final ShipQueryKey key;
+        private long calls;
+        private long collapsed;
+
+        private KeyStats(ShipQueryKey key) {
+            this.key = key;
+        }
+
+        private KeyStats copy() {
+            KeyStats copy = new KeyStats(key);
+            copy.calls = calls;
+            copy.collapsed = collapsed;
+            return copy;
+        }
+    }
+}
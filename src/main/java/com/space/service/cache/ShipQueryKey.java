@@ -0,0 +1,43 @@
+package com.space.service.cache;
+
+import com.space.controller.ShipOrder;
+import com.space.model.ShipFilter;
+
+import java.util.Objects;
+
+// A list query, or a count query when order is null.
+final class ShipQueryKey {
+    private final ShipFilter filter;
+    private final ShipOrder order;
+    private final int pageNumber;
+    private final int pageSize;
+
+    ShipQueryKey(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize) {
+        this.filter = filter.normalized();
+        this.order = order;
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ShipQueryKey key = (ShipQueryKey) o;
+        return pageNumber == key.pageNumber && pageSize == key.pageSize
+                && filter.equals(key.filter) && order == key.order;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(filter, order, pageNumber, pageSize);
+    }
+
+    @Override
+    public String toString() {
+        if (order == null) {
+            return "count " + filter;
+        }
+        return "list " + filter + " order=" + order + " page=" + pageNumber + " size=" + pageSize;
+    }
+}
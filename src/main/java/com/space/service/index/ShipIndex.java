@@ -0,0 +1,716 @@
+package com.space.service.index;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepository;
+import com.space.service.ShipsChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+import static com.space.service.index.SortedLongIndex.sortableKey;
+
+/**
+ * Read model that keeps every ship in primitive column arrays, so list and count queries
+ * can be answered without touching the database. Enabled with the "index" profile.
+ * <p>
+ * Ships live in dense slots, so the low-cardinality attributes (shipType, isUsed) are kept
+ * as plain bitmaps over slots and combined with AND before any column is scanned. The range
+ * attributes (prodDate, speed, crewSize, rating) have sorted indexes, and the narrowest range
+ * of a query drives the candidate set. name and planet have trigram indexes, so a substring
+ * query of three or more characters only visits ships sharing all of its trigrams.
+ * <p>
+ * Columns may be null. A null number or date is stored as the lowest value of its column, so
+ * it sorts first as in MySQL, and never matches a range; a null shipType or isUsed is in no bitmap.
+ * <p>
+ * Single-ship and batch writes are applied on the committing thread. A bulk update or delete
+ * schedules a full reload on the ship-index-reload thread instead, so lists and counts catch up
+ * with it shortly after the commit.
+ */
+@Component
+@Profile("index")
+public class ShipIndex implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipIndex.class);
+
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int RELOAD_CHUNK = 1000;
+    private static final long RELOAD_RETRY_MILLIS = 1000;
+    private static final byte NULL_SHIP_TYPE = -1;
+    private static final long NULL_DATE = Long.MIN_VALUE;
+    private static final double NULL_NUMBER = Double.NEGATIVE_INFINITY;
+    private static final int NULL_CREW_SIZE = Integer.MIN_VALUE;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final AtomicLong reloads = new AtomicLong();
+    private final NavigableSet<Long> loading = new ConcurrentSkipListSet<>();
+    private final Map<Long, Long> appliedAt = new HashMap<>();
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ship-index-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final BitSet used = new BitSet();
+    private final BitSet notUsed = new BitSet();
+    private final BitSet[] shipTypes = new BitSet[SHIP_TYPES.length];
+    private final SortedLongIndex prodDateIndex = new SortedLongIndex();
+    private final SortedLongIndex speedIndex = new SortedLongIndex();
+    private final SortedLongIndex crewSizeIndex = new SortedLongIndex();
+    private final SortedLongIndex ratingIndex = new SortedLongIndex();
+    private final TrigramIndex nameIndex = new TrigramIndex();
+    private final TrigramIndex planetIndex = new TrigramIndex();
+
+    private int slotCount;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] prodDate = new long[INITIAL_CAPACITY];
+    private double[] speed = new double[INITIAL_CAPACITY];
+    private double[] rating = new double[INITIAL_CAPACITY];
+    private int[] crewSize = new int[INITIAL_CAPACITY];
+    private byte[] shipType = new byte[INITIAL_CAPACITY];
+    private String[] name = new String[INITIAL_CAPACITY];
+    private String[] planet = new String[INITIAL_CAPACITY];
+
+    private long modifications;
+    private long reloadedAt;
+
+    private ShipRepository shipRepository;
+    private ApplicationEventPublisher eventPublisher;
+
+    public ShipIndex() {
+        for (int i = 0; i < shipTypes.length; i++) {
+            shipTypes[i] = new BitSet();
+        }
+    }
+
+    @Autowired
+    public void setShipRepository(ShipRepository shipRepository) {
+        this.shipRepository = shipRepository;
+    }
+
+    @Autowired
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuild(shipRepository.findAll());
+    }
+
+    public void rebuild(Collection<Ship> ships) {
+        lock.writeLock().lock();
+        try {
+            modifications++;
+            slotsById.clear();
+            freeSlots.clear();
+            live.clear();
+            used.clear();
+            notUsed.clear();
+            for (BitSet bitmap : shipTypes) {
+                bitmap.clear();
+            }
+            slotCount = 0;
+            ensureCapacity(ships.size());
+            for (Ship ship : ships) {
+                writeColumns(ship);
+            }
+            loadIndexes();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Applied before any other listener, so ShipQueryCache is only invalidated once the index is current.
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipsChanged(ShipsChangedEvent event) {
+        if (event.isBulk()) {
+            scheduleReload(0);
+            return;
+        }
+        Set<Long> changed = new HashSet<>(event.getDeleted());
+        for (Ship ship : event.getSaved()) {
+            changed.add(ship.getId());
+        }
+        // Listeners of concurrent commits may run in any order, so the rows are read again rather
+        // than taken from the event. The read happens outside the lock and gets a sequence number
+        // first: a later number reads a later state, so an id is only applied from a read at least
+        // as recent as the one that last changed it.
+        long sequence = reloads.incrementAndGet();
+        loading.add(sequence);
+        try {
+            Map<Long, Ship> current = new HashMap<>();
+            List<Long> ids = new ArrayList<>(changed);
+            for (int from = 0; from < ids.size(); from += RELOAD_CHUNK) {
+                for (Ship ship : shipRepository.findByIdIn(ids.subList(from, Math.min(from + RELOAD_CHUNK, ids.size())))) {
+                    current.put(ship.getId(), ship);
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                // A full reload that read later has already seen this commit.
+                if (sequence > reloadedAt) {
+                    apply(changed, current, sequence);
+                }
+                loading.remove(sequence);
+                forgetApplied();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            loading.remove(sequence);
+        }
+    }
+
+    // Waits until the full reloads scheduled so far have finished.
+    public boolean awaitReloads(long timeoutMillis) throws InterruptedException {
+        try {
+            reloader.submit(() -> {
+            }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        reloader.shutdownNow();
+    }
+
+    private void scheduleReload(long delayMillis) {
+        if (reloadScheduled.compareAndSet(false, true)) {
+            reloader.schedule(this::reload, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // A bulk statement does not say which rows it changed, so every committed row is read on the
+    // reload thread, compared with the index under the read lock, and only the differences are
+    // applied under the write lock. If a write got in between the two, the comparison is redone.
+    private void reload() {
+        reloadScheduled.set(false);
+        long sequence = reloads.incrementAndGet();
+        loading.add(sequence);
+        try {
+            Map<Long, Ship> committed = new HashMap<>();
+            for (Ship ship : shipRepository.findAllCommitted()) {
+                committed.put(ship.getId(), ship);
+            }
+            Set<Long> changed;
+            long seen;
+            lock.readLock().lock();
+            try {
+                seen = modifications;
+                changed = differences(committed);
+            } finally {
+                lock.readLock().unlock();
+            }
+            lock.writeLock().lock();
+            try {
+                if (modifications != seen) {
+                    changed = differences(committed);
+                }
+                apply(changed, committed, sequence);
+                reloadedAt = sequence;
+                loading.remove(sequence);
+                forgetApplied();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            log.error("Reloading the ship index failed, retrying in {} ms", RELOAD_RETRY_MILLIS, e);
+            scheduleReload(RELOAD_RETRY_MILLIS);
+            return;
+        } finally {
+            loading.remove(sequence);
+        }
+        // Results cached while the reload ran came from the old index.
+        eventPublisher.publishEvent(new ShipIndexReloadedEvent());
+    }
+
+    private Set<Long> differences(Map<Long, Ship> committed) {
+        Set<Long> changed = new HashSet<>();
+        for (Ship ship : committed.values()) {
+            Integer slot = slotsById.get(ship.getId());
+            if (slot == null || !sameColumns(slot, ship)) {
+                changed.add(ship.getId());
+            }
+        }
+        for (Long id : slotsById.keySet()) {
+            if (!committed.containsKey(id)) {
+                changed.add(id);
+            }
+        }
+        return changed;
+    }
+
+    // Ids already applied from a later read are left alone.
+    private void apply(Set<Long> changed, Map<Long, Ship> current, long sequence) {
+        for (Long id : changed) {
+            Long applied = appliedAt.get(id);
+            if (applied != null && applied > sequence) {
+                continue;
+            }
+            Ship ship = current.get(id);
+            if (ship == null) {
+                delete(id);
+            } else {
+                store(ship);
+            }
+            appliedAt.put(id, sequence);
+        }
+        modifications++;
+    }
+
+    private boolean sameColumns(int slot, Ship ship) {
+        return Objects.equals(name[slot], ship.getName())
+                && Objects.equals(planet[slot], ship.getPlanet())
+                && shipType[slot] == (ship.getShipType() == null ? NULL_SHIP_TYPE : (byte) ship.getShipType().ordinal())
+                && prodDate[slot] == (ship.getProdDate() == null ? NULL_DATE : ship.getProdDate().getTime())
+                && used.get(slot) == Boolean.TRUE.equals(ship.getUsed())
+                && notUsed.get(slot) == Boolean.FALSE.equals(ship.getUsed())
+                && Double.compare(speed[slot], ship.getSpeed() == null ? NULL_NUMBER : ship.getSpeed()) == 0
+                && crewSize[slot] == (ship.getCrewSize() == null ? NULL_CREW_SIZE : ship.getCrewSize())
+                && Double.compare(rating[slot], ship.getRating() == null ? NULL_NUMBER : ship.getRating()) == 0;
+    }
+
+    // A sequence is only needed while an older read is still in flight; reads started later get higher ones.
+    private void forgetApplied() {
+        if (loading.isEmpty()) {
+            appliedAt.clear();
+            return;
+        }
+        long oldest = loading.first();
+        appliedAt.values().removeIf(applied -> applied <= oldest);
+    }
+
+    public int count(ShipFilter filter) {
+        Criteria criteria = new Criteria(filter);
+        lock.readLock().lock();
+        try {
+            if (!criteria.hasColumnPredicates()) {
+                return candidates(criteria).cardinality();
+            }
+            int[] count = new int[1];
+            scan(criteria, slot -> count[0]++);
+            return count[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Ship> find(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize) {
+        Criteria criteria = new Criteria(filter);
+        lock.readLock().lock();
+        try {
+            long from = (long) pageNumber * pageSize;
+            List<Ship> result = new ArrayList<>();
+            if (from >= live.cardinality()) {
+                return result;
+            }
+            TopSlots top = new TopSlots(order, (int) Math.min(from + pageSize, live.cardinality()));
+            scan(criteria, top::offer);
+            int[] sorted = top.sorted();
+            for (int i = (int) from; i < sorted.length; i++) {
+                result.add(toShip(sorted[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Orders two slots by the requested column, with the id as tie-break.
+    private int compare(ShipOrder order, int a, int b) {
+        int result;
+        switch (order) {
+            case SPEED:
+                result = Double.compare(speed[a], speed[b]);
+                break;
+            case RATING:
+                result = Double.compare(rating[a], rating[b]);
+                break;
+            case DATE:
+                result = Long.compare(prodDate[a], prodDate[b]);
+                break;
+            default:
+                result = 0;
+        }
+        return result != 0 ? result : Long.compare(ids[a], ids[b]);
+    }
+
+    // The candidate set comes from the bitmaps, the shortest trigram postings or the narrowest
+    // range index slice, whichever is smallest; every candidate is then checked against the
+    // remaining predicates, which also verifies the trigram matches.
+    private void scan(Criteria criteria, IntConsumer consumer) {
+        BitSet candidates = candidates(criteria);
+        int candidateCount = candidates.cardinality();
+        int[] postings = shortestPostings(criteria);
+        SortedLongIndex.Slice range = narrowestRange(criteria);
+        if (postings != null && postings.length <= candidateCount
+                && (range == null || postings.length <= range.size())) {
+            for (int slot : postings) {
+                if (candidates.get(slot) && matches(slot, criteria)) {
+                    consumer.accept(slot);
+                }
+            }
+        } else if (range != null && range.size() < candidateCount) {
+            range.forEachSlot(slot -> {
+                if (candidates.get(slot) && matches(slot, criteria)) {
+                    consumer.accept(slot);
+                }
+            });
+        } else {
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                if (matches(slot, criteria)) {
+                    consumer.accept(slot);
+                }
+            }
+        }
+    }
+
+    // shipType and isUsed are resolved on the bitmaps before any column is read.
+    // The returned set is only read, so a single bitmap is returned without copying.
+    private BitSet candidates(Criteria criteria) {
+        if (criteria.shipType >= 0 && criteria.used != null) {
+            BitSet candidates = (BitSet) shipTypes[criteria.shipType].clone();
+            candidates.and(criteria.used ? used : notUsed);
+            return candidates;
+        }
+        if (criteria.shipType >= 0) {
+            return shipTypes[criteria.shipType];
+        }
+        if (criteria.used != null) {
+            return criteria.used ? used : notUsed;
+        }
+        return live;
+    }
+
+    private int[] shortestPostings(Criteria criteria) {
+        int[] names = criteria.name == null ? null : nameIndex.candidates(criteria.name);
+        int[] planets = criteria.planet == null ? null : planetIndex.candidates(criteria.planet);
+        if (names == null || (planets != null && planets.length < names.length)) {
+            return planets;
+        }
+        return names;
+    }
+
+    private SortedLongIndex.Slice narrowestRange(Criteria criteria) {
+        SortedLongIndex.Slice narrowest = null;
+        if (criteria.after != Long.MIN_VALUE || criteria.before != Long.MAX_VALUE) {
+            narrowest = narrower(narrowest, prodDateIndex.slice(criteria.after, criteria.before));
+        }
+        if (criteria.minSpeed != Double.NEGATIVE_INFINITY || criteria.maxSpeed != Double.POSITIVE_INFINITY) {
+            narrowest = narrower(narrowest, speedIndex.slice(sortableKey(criteria.minSpeed),
+                    sortableKey(criteria.maxSpeed)));
+        }
+        if (criteria.minCrewSize != Integer.MIN_VALUE || criteria.maxCrewSize != Integer.MAX_VALUE) {
+            narrowest = narrower(narrowest, crewSizeIndex.slice(criteria.minCrewSize, criteria.maxCrewSize));
+        }
+        if (criteria.minRating != Double.NEGATIVE_INFINITY || criteria.maxRating != Double.POSITIVE_INFINITY) {
+            narrowest = narrower(narrowest, ratingIndex.slice(sortableKey(criteria.minRating),
+                    sortableKey(criteria.maxRating)));
+        }
+        return narrowest;
+    }
+
+    private static SortedLongIndex.Slice narrower(SortedLongIndex.Slice current, SortedLongIndex.Slice candidate) {
+        return current == null || candidate.size() < current.size() ? candidate : current;
+    }
+
+    private boolean matches(int slot, Criteria criteria) {
+        if (prodDate[slot] < criteria.after || prodDate[slot] > criteria.before) return false;
+        if (speed[slot] < criteria.minSpeed || speed[slot] > criteria.maxSpeed) return false;
+        if (crewSize[slot] < criteria.minCrewSize || crewSize[slot] > criteria.maxCrewSize) return false;
+        if (rating[slot] < criteria.minRating || rating[slot] > criteria.maxRating) return false;
+        if (criteria.name != null && (name[slot] == null || !name[slot].contains(criteria.name))) return false;
+        if (criteria.planet != null && (planet[slot] == null || !planet[slot].contains(criteria.planet))) return false;
+        return !hasNullInRange(slot, criteria);
+    }
+
+    // A null is stored as the lowest value and fails every lower bound, but not an upper bound alone.
+    private boolean hasNullInRange(int slot, Criteria criteria) {
+        return prodDate[slot] == NULL_DATE && criteria.before != Long.MAX_VALUE
+                || speed[slot] == NULL_NUMBER && criteria.maxSpeed != Double.POSITIVE_INFINITY
+                || crewSize[slot] == NULL_CREW_SIZE && criteria.maxCrewSize != Integer.MAX_VALUE
+                || rating[slot] == NULL_NUMBER && criteria.maxRating != Double.POSITIVE_INFINITY;
+    }
+
+    private void store(Ship ship) {
+        Integer existing = slotsById.get(ship.getId());
+        if (existing != null) {
+            removeKeys(existing);
+        }
+        addKeys(writeColumns(ship));
+    }
+
+    private int writeColumns(Ship ship) {
+        Integer existing = slotsById.get(ship.getId());
+        int slot;
+        if (existing != null) {
+            slot = existing;
+        } else {
+            slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+            ensureCapacity(slotCount);
+            slotsById.put(ship.getId(), slot);
+        }
+        ids[slot] = ship.getId();
+        name[slot] = ship.getName();
+        planet[slot] = ship.getPlanet();
+        if (existing != null && shipType[slot] != NULL_SHIP_TYPE) {
+            shipTypes[shipType[slot]].clear(slot);
+        }
+        shipType[slot] = ship.getShipType() == null ? NULL_SHIP_TYPE : (byte) ship.getShipType().ordinal();
+        if (shipType[slot] != NULL_SHIP_TYPE) {
+            shipTypes[shipType[slot]].set(slot);
+        }
+        prodDate[slot] = ship.getProdDate() == null ? NULL_DATE : ship.getProdDate().getTime();
+        used.set(slot, Boolean.TRUE.equals(ship.getUsed()));
+        notUsed.set(slot, Boolean.FALSE.equals(ship.getUsed()));
+        speed[slot] = ship.getSpeed() == null ? NULL_NUMBER : ship.getSpeed();
+        crewSize[slot] = ship.getCrewSize() == null ? NULL_CREW_SIZE : ship.getCrewSize();
+        rating[slot] = ship.getRating() == null ? NULL_NUMBER : ship.getRating();
+        live.set(slot);
+        return slot;
+    }
+
+    private void addKeys(int slot) {
+        nameIndex.add(name[slot], slot);
+        planetIndex.add(planet[slot], slot);
+        prodDateIndex.add(prodDate[slot], slot);
+        speedIndex.add(sortableKey(speed[slot]), slot);
+        crewSizeIndex.add(crewSize[slot], slot);
+        ratingIndex.add(sortableKey(rating[slot]), slot);
+    }
+
+    private void removeKeys(int slot) {
+        nameIndex.remove(name[slot], slot);
+        planetIndex.remove(planet[slot], slot);
+        prodDateIndex.remove(prodDate[slot], slot);
+        speedIndex.remove(sortableKey(speed[slot]), slot);
+        crewSizeIndex.remove(crewSize[slot], slot);
+        ratingIndex.remove(sortableKey(rating[slot]), slot);
+    }
+
+    private void loadIndexes() {
+        nameIndex.clear();
+        planetIndex.clear();
+        int count = live.cardinality();
+        int[] slots = new int[count];
+        long[] prodDateKeys = new long[count];
+        long[] speedKeys = new long[count];
+        long[] crewSizeKeys = new long[count];
+        long[] ratingKeys = new long[count];
+        int i = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1), i++) {
+            slots[i] = slot;
+            prodDateKeys[i] = prodDate[slot];
+            speedKeys[i] = sortableKey(speed[slot]);
+            crewSizeKeys[i] = crewSize[slot];
+            ratingKeys[i] = sortableKey(rating[slot]);
+            nameIndex.add(name[slot], slot);
+            planetIndex.add(planet[slot], slot);
+        }
+        prodDateIndex.load(prodDateKeys, slots, count);
+        speedIndex.load(speedKeys, slots, count);
+        crewSizeIndex.load(crewSizeKeys, slots, count);
+        ratingIndex.load(ratingKeys, slots, count);
+    }
+
+    private void delete(Long id) {
+        Integer slot = slotsById.remove(id);
+        if (slot != null) {
+            removeKeys(slot);
+            live.clear(slot);
+            used.clear(slot);
+            notUsed.clear(slot);
+            if (shipType[slot] != NULL_SHIP_TYPE) {
+                shipTypes[shipType[slot]].clear(slot);
+            }
+            name[slot] = null;
+            planet[slot] = null;
+            freeSlots.push(slot);
+        }
+    }
+
+    private Ship toShip(int slot) {
+        Ship ship = new Ship();
+        ship.setId(ids[slot]);
+        ship.setName(name[slot]);
+        ship.setPlanet(planet[slot]);
+        ship.setShipType(shipType[slot] == NULL_SHIP_TYPE ? null : SHIP_TYPES[shipType[slot]]);
+        ship.setProdDate(prodDate[slot] == NULL_DATE ? null : new java.sql.Date(prodDate[slot]));
+        ship.setUsed(used.get(slot) ? Boolean.TRUE : notUsed.get(slot) ? Boolean.FALSE : null);
+        ship.setSpeed(speed[slot] == NULL_NUMBER ? null : speed[slot]);
+        ship.setCrewSize(crewSize[slot] == NULL_CREW_SIZE ? null : crewSize[slot]);
+        ship.setRating(rating[slot] == NULL_NUMBER ? null : rating[slot]);
+        return ship;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        prodDate = Arrays.copyOf(prodDate, newCapacity);
+        speed = Arrays.copyOf(speed, newCapacity);
+        rating = Arrays.copyOf(rating, newCapacity);
+        crewSize = Arrays.copyOf(crewSize, newCapacity);
+        shipType = Arrays.copyOf(shipType, newCapacity);
+        name = Arrays.copyOf(name, newCapacity);
+        planet = Arrays.copyOf(planet, newCapacity);
+    }
+
+    // Keeps the first "limit" slots of the ordering in a max-heap, so a page costs O(n log k)
+    // instead of sorting every match.
+    private final class TopSlots {
+        private final ShipOrder order;
+        private final int[] heap;
+        private int size;
+
+        private TopSlots(ShipOrder order, int limit) {
+            this.order = order;
+            this.heap = new int[limit];
+        }
+
+        private void offer(int slot) {
+            if (size < heap.length) {
+                heap[size] = slot;
+                siftUp(size++);
+            } else if (heap.length > 0 && compare(order, slot, heap[0]) < 0) {
+                heap[0] = slot;
+                siftDown(0, size);
+            }
+        }
+
+        // Drains the heap into ascending order.
+        private int[] sorted() {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            return Arrays.copyOf(heap, size);
+        }
+
+        private void siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (compare(order, heap[position], heap[parent]) <= 0) {
+                    return;
+                }
+                swap(position, parent);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int position, int end) {
+            while (true) {
+                int largest = position;
+                int left = 2 * position + 1;
+                int right = left + 1;
+                if (left < end && compare(order, heap[left], heap[largest]) > 0) {
+                    largest = left;
+                }
+                if (right < end && compare(order, heap[right], heap[largest]) > 0) {
+                    largest = right;
+                }
+                if (largest == position) {
+                    return;
+                }
+                swap(position, largest);
+                position = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int slot = heap[i];
+            heap[i] = heap[j];
+            heap[j] = slot;
+        }
+    }
+
+    // The filter unboxed once per query, with open bounds for the parameters that were not given.
+    private static final class Criteria {
+        private final String name;
+        private final String planet;
+        private final int shipType;
+        private final Boolean used;
+        private final long after;
+        private final long before;
+        private final double minSpeed;
+        private final double maxSpeed;
+        private final int minCrewSize;
+        private final int maxCrewSize;
+        private final double minRating;
+        private final double maxRating;
+
+        private Criteria(ShipFilter filter) {
+            name = filter.getName();
+            planet = filter.getPlanet();
+            shipType = filter.getShipType() == null ? -1 : filter.getShipType().ordinal();
+            used = filter.getUsed();
+            after = filter.getAfter() == null ? Long.MIN_VALUE : filter.getAfter();
+            before = filter.getBefore() == null ? Long.MAX_VALUE : filter.getBefore();
+            minSpeed = bound(filter.getMinSpeed(), Double.NEGATIVE_INFINITY);
+            maxSpeed = bound(filter.getMaxSpeed(), Double.POSITIVE_INFINITY);
+            minCrewSize = filter.getMinCrewSize() == null ? Integer.MIN_VALUE : filter.getMinCrewSize();
+            maxCrewSize = filter.getMaxCrewSize() == null ? Integer.MAX_VALUE : filter.getMaxCrewSize();
+            minRating = bound(filter.getMinRating(), Double.NEGATIVE_INFINITY);
+            maxRating = bound(filter.getMaxRating(), Double.POSITIVE_INFINITY);
+        }
+
+        // A NaN bound never excludes anything, exactly like a missing one.
+        private static double bound(Double value, double open) {
+            return value == null || value.isNaN() ? open : value;
+        }
+
+        private boolean hasColumnPredicates() {
+            return name != null || planet != null
+                    || after != Long.MIN_VALUE || before != Long.MAX_VALUE
+                    || minSpeed != Double.NEGATIVE_INFINITY || maxSpeed != Double.POSITIVE_INFINITY
+                    || minCrewSize != Integer.MIN_VALUE || maxCrewSize != Integer.MAX_VALUE
+                    || minRating != Double.NEGATIVE_INFINITY || maxRating != Double.POSITIVE_INFINITY;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.space.service.index;
+
+// Published by ShipIndex after a full reload changed what lists and counts return.
+public class ShipIndexReloadedEvent {
+}
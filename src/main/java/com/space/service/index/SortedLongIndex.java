@@ -0,0 +1,225 @@
+package com.space.service.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * (key, slot) pairs kept sorted by key and then by slot, so an inclusive key range is a
+ * contiguous slice found with two binary searches. Doubles are stored through
+ * {@link #sortableKey(double)}.
+ * <p>
+ * The pairs are split into chunks of at most CHUNK_CAPACITY, like the leaves of a B+-tree, so
+ * a write shifts entries within one chunk only. A full chunk is split in two and an empty one
+ * is dropped; the first position of every chunk is kept to turn chunk positions into ranks.
+ */
+class SortedLongIndex {
+
+    static final int CHUNK_CAPACITY = 512;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int[] starts = new int[16];
+    private int size;
+
+    SortedLongIndex() {
+        chunks.add(new Chunk());
+    }
+
+    static long sortableKey(double value) {
+        long bits = Double.doubleToLongBits(value == 0.0 ? 0.0 : value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(long key, int slot) {
+        int index = chunkFor(key, slot);
+        Chunk chunk = chunks.get(index);
+        chunk.insert(chunk.position(key, slot), key, slot);
+        if (chunk.size == CHUNK_CAPACITY) {
+            chunks.add(index + 1, chunk.split());
+        }
+        size++;
+        updateStarts(index);
+    }
+
+    void remove(long key, int slot) {
+        int index = chunkFor(key, slot);
+        Chunk chunk = chunks.get(index);
+        int position = chunk.position(key, slot);
+        if (position < chunk.size && chunk.keys[position] == key && chunk.slots[position] == slot) {
+            chunk.delete(position);
+            if (chunk.size == 0 && chunks.size() > 1) {
+                chunks.remove(index);
+            }
+            size--;
+            updateStarts(index);
+        }
+    }
+
+    // Sorts the pairs once and fills the chunks half way, leaving room for later writes.
+    void load(long[] newKeys, int[] newSlots, int count) {
+        long[] keys = Arrays.copyOf(newKeys, count);
+        int[] slots = Arrays.copyOf(newSlots, count);
+        sort(keys, slots, new long[count], new int[count], 0, count);
+        chunks.clear();
+        int fill = CHUNK_CAPACITY / 2;
+        for (int from = 0; from < count || chunks.isEmpty(); from += fill) {
+            Chunk chunk = new Chunk();
+            chunk.size = Math.min(fill, count - from);
+            System.arraycopy(keys, from, chunk.keys, 0, chunk.size);
+            System.arraycopy(slots, from, chunk.slots, 0, chunk.size);
+            chunks.add(chunk);
+        }
+        size = count;
+        updateStarts(0);
+    }
+
+    Slice slice(long from, long to) {
+        int start = rank(from, Integer.MIN_VALUE);
+        int end = to == Long.MAX_VALUE ? size : rank(to + 1, Integer.MIN_VALUE);
+        return new Slice(this, start, Math.max(start, end));
+    }
+
+    // Number of pairs ordered before (key, slot).
+    private int rank(long key, int slot) {
+        int index = chunkFor(key, slot);
+        return starts[index] + chunks.get(index).position(key, slot);
+    }
+
+    // The first chunk whose last pair is not below (key, slot), or the last chunk.
+    private int chunkFor(long key, int slot) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            Chunk chunk = chunks.get(middle);
+            int last = chunk.size - 1;
+            if (chunk.keys[last] < key || (chunk.keys[last] == key && chunk.slots[last] < slot)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void updateStarts(int fromChunk) {
+        if (starts.length < chunks.size()) {
+            starts = Arrays.copyOf(starts, chunks.size() * 2);
+        }
+        int start = fromChunk == 0 ? 0 : starts[fromChunk - 1] + chunks.get(fromChunk - 1).size;
+        for (int i = fromChunk; i < chunks.size(); i++) {
+            starts[i] = start;
+            start += chunks.get(i).size;
+        }
+    }
+
+    private void forEachSlot(int from, int to, IntConsumer consumer) {
+        if (from >= to) {
+            return;
+        }
+        int index = Arrays.binarySearch(starts, 0, chunks.size(), from);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        int position = from - starts[index];
+        for (int remaining = to - from; remaining > 0; ) {
+            Chunk chunk = chunks.get(index++);
+            int end = Math.min(chunk.size, position + remaining);
+            for (int i = position; i < end; i++) {
+                consumer.accept(chunk.slots[i]);
+            }
+            remaining -= end - position;
+            position = 0;
+        }
+    }
+
+    private static void sort(long[] keys, int[] slots, long[] keyBuffer, int[] slotBuffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(keys, slots, keyBuffer, slotBuffer, from, middle);
+        sort(keys, slots, keyBuffer, slotBuffer, middle, to);
+        System.arraycopy(keys, from, keyBuffer, from, to - from);
+        System.arraycopy(slots, from, slotBuffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            boolean takeRight = left == middle || (right < to && (keyBuffer[right] < keyBuffer[left]
+                    || (keyBuffer[right] == keyBuffer[left] && slotBuffer[right] < slotBuffer[left])));
+            int source = takeRight ? right++ : left++;
+            keys[i] = keyBuffer[source];
+            slots[i] = slotBuffer[source];
+        }
+    }
+
+    private static final class Chunk {
+        private final long[] keys = new long[CHUNK_CAPACITY];
+        private final int[] slots = new int[CHUNK_CAPACITY];
+        private int size;
+
+        private int position(long key, int slot) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle] < key || (keys[middle] == key && slots[middle] < slot)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void insert(int position, long key, int slot) {
+            System.arraycopy(keys, position, keys, position + 1, size - position);
+            System.arraycopy(slots, position, slots, position + 1, size - position);
+            keys[position] = key;
+            slots[position] = slot;
+            size++;
+        }
+
+        private void delete(int position) {
+            System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+            System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+            size--;
+        }
+
+        // Moves the upper half into a new chunk.
+        private Chunk split() {
+            Chunk upper = new Chunk();
+            int half = size / 2;
+            upper.size = size - half;
+            System.arraycopy(keys, half, upper.keys, 0, upper.size);
+            System.arraycopy(slots, half, upper.slots, 0, upper.size);
+            size = half;
+            return upper;
+        }
+    }
+
+    static final class Slice {
+        private final SortedLongIndex index;
+        private final int from;
+        private final int to;
+
+        private Slice(SortedLongIndex index, int from, int to) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+        }
+
+        int size() {
+            return to - from;
+        }
+
+        void forEachSlot(IntConsumer consumer) {
+            index.forEachSlot(from, to, consumer);
+        }
+    }
+}
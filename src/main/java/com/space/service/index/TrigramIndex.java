@@ -0,0 +1,118 @@
+package com.space.service.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted index from every three-character substring of a value to the sorted slots holding it.
+ * A value containing the query contains all of the query's trigrams, so the intersection of their
+ * postings is a superset of the matches; callers still verify with {@link String#contains}.
+ */
+class TrigramIndex {
+
+    private static final int[] NO_SLOTS = new int[0];
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    void add(String value, int slot) {
+        for (long trigram : trigrams(value)) {
+            postings.computeIfAbsent(trigram, key -> new Postings()).add(slot);
+        }
+    }
+
+    void remove(String value, int slot) {
+        for (long trigram : trigrams(value)) {
+            Postings list = postings.get(trigram);
+            if (list != null && list.remove(slot) && list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    // Sorted slots that share every trigram of the query, or null when the query is shorter
+    // than a trigram and cannot narrow anything.
+    int[] candidates(String query) {
+        long[] trigrams = trigrams(query);
+        if (trigrams.length == 0) {
+            return null;
+        }
+        Postings[] lists = new Postings[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            lists[i] = postings.get(trigrams[i]);
+            if (lists[i] == null) {
+                return NO_SLOTS;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] result = Arrays.copyOf(lists[0].slots, lists[0].size);
+        int size = result.length;
+        for (int i = 1; i < lists.length && size > 0; i++) {
+            int kept = 0;
+            for (int j = 0; j < size; j++) {
+                if (lists[i].contains(result[j])) {
+                    result[kept++] = result[j];
+                }
+            }
+            size = kept;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    // Distinct trigrams of the value, three UTF-16 chars packed into one long. null has none.
+    private static long[] trigrams(String value) {
+        int count = value == null ? 0 : value.length() - 2;
+        if (count <= 0) {
+            return new long[0];
+        }
+        long[] trigrams = new long[count];
+        for (int i = 0; i < count; i++) {
+            trigrams[i] = (long) value.charAt(i) << 32 | (long) value.charAt(i + 1) << 16 | value.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (trigrams[i] != trigrams[distinct - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return distinct == count ? trigrams : Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        private void add(int slot) {
+            int position = Arrays.binarySearch(slots, 0, size, slot);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, position, slots, position + 1, size - position);
+            slots[position] = slot;
+            size++;
+        }
+
+        private boolean remove(int slot) {
+            int position = Arrays.binarySearch(slots, 0, size, slot);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private boolean contains(int slot) {
+            return Arrays.binarySearch(slots, 0, size, slot) >= 0;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.space.service.ingest;
+
+import com.space.exceptions.IngestQueueFullException;
+import com.space.model.Ship;
+import com.space.service.ShipsChangedEvent;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind path for created ships. A validated ship with a reserved id is put on a bounded
+ * queue and acknowledged at once; a single writer inserts queued ships in group commits of up to
+ * batch-size ships, waiting at most linger ms for a group to fill. When the queue stays full for
+ * offer-timeout ms the ship is refused. Until its group is committed a ship is served from here
+ * by id, and updating or deleting it waits for the commit; lists and counts see it only after
+ * the commit. Enabled with the "ingest" profile.
+ * <p>
+ * An acknowledged ship is never given up on: a group that fails to commit is retried with
+ * exponential backoff up to max-backoff ms. After attempts failures in a row the queue is
+ * stalled and refuses new ships with 503 until the group is written.
+ */
+@Component
+@Profile("ingest")
+@ManagedResource(objectName = "com.space:type=ShipIngestQueue")
+public class ShipIngestQueue implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipIngestQueue.class);
+
+    private static final String INSERT_SQL = "INSERT INTO ship (id, name, planet, shipType, prodDate, isUsed, "
+            + "speed, crewSize, rating) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final Map<Long, Ship> pending = new ConcurrentHashMap<>();
+    private final Object forgotten = new Object();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+
+    private BlockingQueue<Ship> queue;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean stalled;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private EntityManagerFactory entityManagerFactory;
+    private int capacity = 10000;
+    private int batchSize = 100;
+    private long lingerMillis = 50;
+    private long offerTimeoutMillis = 0;
+    private int attempts = 3;
+    private long maxBackoffMillis = 30000;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Autowired
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Autowired(required = false)
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Value("${cosmoport.ingest.capacity:10000}")
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Value("${cosmoport.ingest.batch-size:100}")
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Value("${cosmoport.ingest.linger:50}")
+    public void setLingerMillis(long lingerMillis) {
+        this.lingerMillis = lingerMillis;
+    }
+
+    @Value("${cosmoport.ingest.offer-timeout:0}")
+    public void setOfferTimeoutMillis(long offerTimeoutMillis) {
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @Value("${cosmoport.ingest.attempts:3}")
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    @Value("${cosmoport.ingest.max-backoff:30000}")
+    public void setMaxBackoffMillis(long maxBackoffMillis) {
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "ship-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Queued ships are still written on shutdown, as long as the database takes them within 30 s.
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (writer.isAlive()) {
+            log.error("Shutting down with {} acknowledged ships not written: {}", pending.size(), pending.keySet());
+            writer.interrupt();
+        }
+    }
+
+    public void enqueue(Ship ship) {
+        if (stalled) {
+            refused.incrementAndGet();
+            throw new IngestQueueFullException();
+        }
+        pending.put(ship.getId(), ship);
+        boolean offered;
+        try {
+            offered = queue.offer(ship, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            offered = false;
+        }
+        if (!offered) {
+            pending.remove(ship.getId());
+            refused.incrementAndGet();
+            throw new IngestQueueFullException();
+        }
+        accepted.incrementAndGet();
+    }
+
+    public Ship getPending(Long id) {
+        return pending.get(id);
+    }
+
+    // Waits until the ship with this id, if it is queued, has been written or given up on.
+    public boolean awaitWritten(Long id, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (forgotten) {
+            while (pending.containsKey(id)) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                forgotten.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    @ManagedAttribute
+    public int getQueued() {
+        return queue.size();
+    }
+
+    @ManagedAttribute
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @ManagedAttribute
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    @ManagedAttribute
+    public long getRefused() {
+        return refused.get();
+    }
+
+    @ManagedAttribute
+    public long getWritten() {
+        return written.get();
+    }
+
+    @ManagedAttribute
+    public long getFailedAttempts() {
+        return failedAttempts.get();
+    }
+
+    @ManagedAttribute
+    public boolean isStalled() {
+        return stalled;
+    }
+
+    @ManagedAttribute
+    public long getCommits() {
+        return commits.get();
+    }
+
+    @ManagedAttribute
+    public double getAverageCommitSize() {
+        long count = commits.get();
+        return count == 0 ? 0 : (double) written.get() / count;
+    }
+
+    private void writeLoop() {
+        List<Ship> group = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Ship first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (group.size() < batchSize) {
+                    queue.drainTo(group, batchSize - group.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (group.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Ship next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                write(group);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                // A failing listener after the commit must not stop the writer.
+                log.error("Handling {} written ships failed", group.size(), e);
+            } finally {
+                forget(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void write(List<Ship> group) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_SQL, group, group.size(),
+                        (statement, ship) -> {
+                            statement.setLong(1, ship.getId());
+                            statement.setString(2, ship.getName());
+                            statement.setString(3, ship.getPlanet());
+                            statement.setString(4, ship.getShipType().name());
+                            statement.setDate(5, new java.sql.Date(ship.getProdDate().getTime()));
+                            statement.setBoolean(6, ship.getUsed());
+                            statement.setDouble(7, ship.getSpeed());
+                            statement.setInt(8, ship.getCrewSize());
+                            statement.setDouble(9, ship.getRating());
+                        }));
+                break;
+            } catch (RuntimeException e) {
+                failedAttempts.incrementAndGet();
+                if (attempt == attempts) {
+                    stalled = true;
+                    log.error("Writing {} queued ships failed {} times, refusing new ships until they are written",
+                            group.size(), attempt, e);
+                } else {
+                    log.warn("Writing {} queued ships failed, retrying", group.size(), e);
+                }
+                Thread.sleep(Math.min(100L << Math.min(attempt - 1, 20), maxBackoffMillis));
+            }
+        }
+        if (stalled) {
+            stalled = false;
+            log.info("Queued ships are written again, accepting new ships");
+        }
+        commits.incrementAndGet();
+        written.addAndGet(group.size());
+        // The inserts bypass Hibernate, so cached query results are dropped by hand.
+        if (entityManagerFactory != null) {
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        }
+        eventPublisher.publishEvent(new ShipsChangedEvent(new ArrayList<>(group), Collections.emptyList()));
+    }
+
+    private void forget(List<Ship> group) {
+        for (Ship ship : group) {
+            pending.remove(ship.getId());
+        }
+        synchronized (forgotten) {
+            forgotten.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.space.config;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.WebApplicationInitializer;
+
+import javax.servlet.ServletContext;
+
+/**
+ * Makes VirtualThreadTaskExecutor the Spring MVC task executor, so ShipController's handlers run
+ * on virtual threads (see DispatchingHandlerAdapter). It is picked up next to MyWebAppInit, and
+ * only exists in builds made with -Pvirtual-threads. The setting goes on the servlet context
+ * rather than into cosmoport-virtual-threads.properties, so MockMvc tests keep calling the
+ * handlers directly.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class VirtualThreadInit implements WebApplicationInitializer {
+
+    @Override
+    public void onStartup(ServletContext servletContext) {
+        servletContext.setInitParameter("cosmoport.mvc.task-executor", VirtualThreadTaskExecutor.class.getName());
+    }
+}
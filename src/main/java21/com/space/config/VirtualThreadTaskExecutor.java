@@ -0,0 +1,20 @@
+package com.space.config;
+
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Starts every task on a new virtual thread, named rest-N. A handler blocked on JDBC then gives up
+ * its carrier thread, so the connection pool rather than a thread pool bounds how many run at once.
+ */
+public class VirtualThreadTaskExecutor extends TaskExecutorAdapter {
+
+    public VirtualThreadTaskExecutor() {
+        this(Thread.ofVirtual().name("rest-", 0).factory());
+    }
+
+    private VirtualThreadTaskExecutor(ThreadFactory threadFactory) {
+        super(task -> threadFactory.newThread(task).start());
+    }
+}
@@ -0,0 +1,87 @@
+package com.space.config;
+
+import com.space.exceptions.ServiceBusyException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class BoundedExecutorTest {
+
+    private final BoundedExecutor executor = new BoundedExecutor("test", 1, 1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void callsBeyondPoolAndQueueAreRefused() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.supply(() -> {
+            started.countDown();
+            await();
+            return "first";
+        });
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = executor.supply(() -> "second");
+
+        assertEquals(1, executor.getActiveThreads());
+        assertEquals(1, executor.getQueueDepth());
+        assertEquals(0, executor.getQueueRemainingCapacity());
+        try {
+            executor.supply(() -> "third");
+            fail("a full executor must refuse the call");
+        } catch (ServiceBusyException expected) {
+        }
+        assertEquals(1, executor.getRejectedTasks());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void cancelledCallsNeverStart() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.supply(() -> {
+            started.countDown();
+            await();
+            return "first";
+        });
+        started.await(5, TimeUnit.SECONDS);
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<String> queued = executor.supply(() -> {
+            ran.set(true);
+            return "second";
+        });
+
+        queued.cancel(false);
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(1, executor.getCancelledTasks());
+        CompletableFuture<String> next = executor.supply(() -> "third");
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("third", next.get(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+    }
+
+    private void await() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.space.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+
+import java.sql.Connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectionPoolMetricsTest {
+
+    @Test
+    public void recordsAcquisitionsAndPoolState() throws Exception {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:pool-metrics");
+        config.setMaximumPoolSize(2);
+        config.setMetricsTrackerFactory(metrics);
+
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            try (Connection connection = dataSource.getConnection()) {
+                assertTrue(connection.isValid(1));
+                assertEquals(1, metrics.getAcquisitions());
+                assertEquals(1, metrics.getActiveConnections());
+                assertEquals(0, metrics.getPendingThreads());
+            }
+            try (Connection connection = dataSource.getConnection()) {
+                assertEquals(2, metrics.getAcquisitions());
+            }
+            assertTrue(metrics.getMaxAcquireMillis() >= metrics.getAverageAcquireMillis());
+            assertTrue(metrics.getAverageUsageMillis() >= 0);
+            assertEquals(0, metrics.getTimeouts());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.space.config;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica0;
+    private EmbeddedDatabase replica1;
+    private SwitchableDataSource replica1Switch;
+    private ReadWriteRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writes;
+    private TransactionTemplate reads;
+
+    @Before
+    public void setUp() {
+        primary = node("primary");
+        replica0 = node("replica-0");
+        replica1 = node("replica-1");
+        replica1Switch = new SwitchableDataSource(replica1);
+        routing = new ReadWriteRoutingDataSource(primary, Arrays.asList(replica0, replica1Switch));
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writes = new TransactionTemplate(transactionManager);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+    }
+
+    @After
+    public void tearDown() {
+        primary.shutdown();
+        replica0.shutdown();
+        replica1.shutdown();
+    }
+
+    @Test
+    public void writesGoToPrimary() {
+        assertEquals("primary", writes.execute(status -> nodeName()));
+        assertEquals("primary", nodeName());
+    }
+
+    @Test
+    public void readOnlyTransactionsAlternateBetweenReplicas() {
+        Set<String> nodes = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(reads.execute(status -> nodeName()));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("replica-0", "replica-1")), nodes);
+    }
+
+    @Test
+    public void failedHealthCheckTakesReplicaOutUntilItRecovers() {
+        replica1Switch.down = true;
+        routing.checkReplicas(1);
+        assertEquals(1, routing.getHealthyReplicaCount());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("replica-0", reads.execute(status -> nodeName()));
+        }
+
+        replica1Switch.down = false;
+        routing.checkReplicas(1);
+        assertEquals(2, routing.getHealthyReplicaCount());
+    }
+
+    @Test
+    public void failedConnectionFallsBackToPrimary() {
+        routing = new ReadWriteRoutingDataSource(primary, Arrays.asList(replica1Switch));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        reads = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        reads.setReadOnly(true);
+
+        replica1Switch.down = true;
+        assertEquals("primary", reads.execute(status -> nodeName()));
+        assertEquals(0, routing.getHealthyReplicaCount());
+        assertEquals("primary", reads.execute(status -> nodeName()));
+    }
+
+    private String nodeName() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static EmbeddedDatabase node(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(H2)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+        return database;
+    }
+
+    private static class SwitchableDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+
+        SwitchableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Replica is down");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.space.config;
+
+import com.space.controller.AbstractTest;
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.test.context.ContextConfiguration;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+// The application's JpaTransactionManager over the prod wiring of a LazyConnectionDataSourceProxy
+// around ReadWriteRoutingDataSource, with one replica whose ships all have the planet "Replica".
+@ContextConfiguration(classes = ReplicaReadsTest.Replicas.class)
+public class ReplicaReadsTest extends AbstractTest {
+
+    private ShipService shipService;
+    private Replicas replicas;
+
+    @Autowired
+    public void setShipService(ShipService shipService) {
+        this.shipService = shipService;
+    }
+
+    @Autowired
+    public void setReplicas(Replicas replicas) {
+        this.replicas = replicas;
+    }
+
+    @Test
+    public void getShipReadsFromReplica() {
+        assertEquals("Replica", shipService.getShip("1").getPlanet());
+    }
+
+    @Test
+    public void getShipsListReadsFromReplica() {
+        List<Ship> ships = shipService.getShipsList(null, "Replica", null, null, null, null, null, null,
+                null, null, null, null, ShipOrder.ID, 0, 5);
+
+        assertEquals(5, ships.size());
+    }
+
+    @Test
+    public void updatesGoToPrimary() {
+        Ship ship = new Ship();
+        ship.setPlanet("Venus");
+        shipService.updateShip(ship, "1");
+
+        assertEquals("Venus", planet(replicas.primary));
+        assertEquals("Replica", planet(replicas.replica));
+    }
+
+    private static String planet(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT planet FROM ship WHERE id = 1", String.class);
+    }
+
+    // Replaces the "dataSource" bean of AppConfig's dev profile.
+    @Configuration
+    static class Replicas implements DisposableBean {
+
+        private final EmbeddedDatabase primary = database();
+        private final EmbeddedDatabase replica = database();
+
+        @Bean
+        public DataSource dataSource() {
+            new JdbcTemplate(replica).update("UPDATE ship SET planet = 'Replica'");
+            return new LazyConnectionDataSourceProxy(
+                    new ReadWriteRoutingDataSource(primary, Collections.singletonList(replica)));
+        }
+
+        @Override
+        public void destroy() {
+            primary.shutdown();
+            replica.shutdown();
+        }
+
+        private static EmbeddedDatabase database() {
+            return new EmbeddedDatabaseBuilder()
+                    .generateUniqueName(true)
+                    .setType(H2)
+                    .setScriptEncoding("UTF-8")
+                    .addScript("test.sql")
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.space.config;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Payload size and encode/decode time of a 1000-ship page in JSON, Smile and CBOR, with the
+ * mapper settings of WebConfig. Sizes are asserted; times are only logged, as a rough guide.
+ */
+public class ShipEncodingBenchmarkTest {
+
+    private static final Logger log = Logger.getLogger(ShipEncodingBenchmarkTest.class);
+    private static final int ROUNDS = 50;
+
+    @Test
+    public void binaryEncodingsAreSmallerThanJson() throws Exception {
+        List<Ship> page = page(1000);
+        int json = measure("JSON", new JsonFactory(), page);
+        int smile = measure("Smile", new SmileFactory(), page);
+        int cbor = measure("CBOR", new CBORFactory(), page);
+
+        assertTrue(smile < json);
+        assertTrue(cbor < json);
+    }
+
+    private static int measure(String name, JsonFactory factory, List<Ship> page) throws Exception {
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        JavaType type = mapper.getTypeFactory().constructCollectionType(List.class, Ship.class);
+
+        byte[] encoded = mapper.writeValueAsBytes(page);
+        List<Ship> decoded = mapper.readValue(encoded, type);
+        assertEquals(page.size(), decoded.size());
+        assertEquals(page.get(7).getName(), decoded.get(7).getName());
+        assertEquals(page.get(7).getProdDate(), decoded.get(7).getProdDate());
+
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoded = mapper.writeValueAsBytes(page);
+            encodeNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            mapper.readValue(encoded, type);
+            decodeNanos += System.nanoTime() - start;
+        }
+        log.info(String.format("%-5s %7d bytes, encode %.3f ms, decode %.3f ms", name, encoded.length,
+                encodeNanos / 1e6 / ROUNDS, decodeNanos / 1e6 / ROUNDS));
+        return encoded.length;
+    }
+
+    private static List<Ship> page(int size) {
+        List<Ship> ships = new ArrayList<>();
+        ShipType[] types = ShipType.values();
+        for (int i = 1; i <= size; i++) {
+            Ship ship = new Ship();
+            ship.setId((long) i);
+            ship.setName("Ship " + i);
+            ship.setPlanet(i % 2 == 0 ? "Earth" : "Mars");
+            ship.setShipType(types[i % types.length]);
+            ship.setProdDate(new Date(32998274577071L + i * 86400000L));
+            ship.setUsed(i % 3 == 0);
+            ship.setSpeed(0.01 + (i % 98) / 100.0);
+            ship.setCrewSize(1 + i % 9999);
+            ship.setRating((i % 1000) / 100.0);
+            ships.add(ship);
+        }
+        return ships;
+    }
+}
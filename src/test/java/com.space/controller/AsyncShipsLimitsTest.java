@@ -0,0 +1,95 @@
+package com.space.controller;
+
+import com.space.config.BoundedExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// One thread and one queue slot, taken by a call that waits for release.
+@TestPropertySource(properties = {"cosmoport.async.threads=1", "cosmoport.async.queue-capacity=1"})
+public class AsyncShipsLimitsTest extends AbstractTest {
+
+    private BoundedExecutor executor;
+    private CountDownLatch release;
+    private CompletableFuture<String> busy;
+
+    @Autowired
+    public void setExecutor(BoundedExecutor executor) {
+        this.executor = executor;
+    }
+
+    @Before
+    public void occupyThread() throws InterruptedException {
+        release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        busy = executor.supply(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "busy";
+        });
+        started.await(5, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void releaseThread() throws Exception {
+        release.countDown();
+        busy.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void fullExecutorAnswers503() throws Exception {
+        MvcResult queued = mockMvc.perform(get("/rest/async/ships/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        long rejected = executor.getRejectedTasks();
+
+        mockMvc.perform(get("/rest/async/ships/count"))
+                .andExpect(status().isServiceUnavailable());
+        assertEquals(rejected + 1, executor.getRejectedTasks());
+
+        release.countDown();
+        mockMvc.perform(asyncDispatch(queued)).andExpect(status().isOk());
+    }
+
+    @Test
+    public void timedOutCallAnswers503AndNeverRuns() throws Exception {
+        long cancelled = executor.getCancelledTasks();
+        MvcResult result = mockMvc.perform(get("/rest/async/ships").param("pageSize", "40"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(1, executor.getQueueDepth());
+
+        timeout(result);
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isServiceUnavailable());
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(cancelled + 1, executor.getCancelledTasks());
+    }
+
+    // MockMvc never expires async requests on its own.
+    private static void timeout(MvcResult result) throws Exception {
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+    }
+}
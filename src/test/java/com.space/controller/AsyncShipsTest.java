@@ -0,0 +1,115 @@
+package com.space.controller;
+
+import com.space.config.CompressionFilter;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AsyncShipsTest extends AbstractTest {
+
+    @Test
+    public void listMatchesSyncEndpoint() throws Exception {
+        assertEquals(sync(get("/rest/ships").param("planet", "Earth").param("order", "SPEED").param("pageSize", "5")),
+                async(mockMvc, get("/rest/async/ships").param("planet", "Earth").param("order", "SPEED")
+                        .param("pageSize", "5")).getContentAsString());
+    }
+
+    @Test
+    public void sparseListMatchesSyncEndpoint() throws Exception {
+        assertEquals(sync(get("/rest/ships").param("fields", "name,rating").param("pageNumber", "2")),
+                async(mockMvc, get("/rest/async/ships").param("fields", "name,rating").param("pageNumber", "2"))
+                        .getContentAsString());
+    }
+
+    @Test
+    public void countMatchesSyncEndpoint() throws Exception {
+        assertEquals(sync(get("/rest/ships/count").param("isUsed", "false")),
+                async(mockMvc, get("/rest/async/ships/count").param("isUsed", "false")).getContentAsString());
+    }
+
+    @Test
+    public void everyFilterParameterIsBoundOnBothEndpoints() throws Exception {
+        String[][] params = {{"name", "a"}, {"planet", "r"}, {"shipType", "MERCHANT"}, {"after", "32503680000000"},
+                {"before", "29379542400000"}, {"isUsed", "true"}, {"minSpeed", "0.1"}, {"maxSpeed", "0.9"},
+                {"minCrewSize", "1000"}, {"maxCrewSize", "500"}, {"minRating", "0.5"}, {"maxRating", "3.0"}};
+        for (String[] param : params) {
+            String count = sync(get("/rest/ships/count").param(param[0], param[1]));
+            assertEquals(param[0], count,
+                    async(mockMvc, get("/rest/async/ships/count").param(param[0], param[1])).getContentAsString());
+            assertNotEquals(param[0], "40", count);
+        }
+    }
+
+    @Test
+    public void malformedFilterIsRejected() throws Exception {
+        mockMvc.perform(get("/rest/ships/count").param("shipType", "SUBMARINE"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/async/ships").param("minSpeed", "fast"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shipMatchesSyncEndpoint() throws Exception {
+        assertEquals(sync(get("/rest/ships/7")), async(mockMvc, get("/rest/async/ships/7")).getContentAsString());
+    }
+
+    @Test
+    public void serviceErrorsKeepTheirStatus() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/async/ships/1000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+
+        result = mockMvc.perform(get("/rest/async/ships/0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void asyncResponsesAreCompressed() throws Exception {
+        MockMvc compressing = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(new CompressionFilter())
+                .build();
+        String plain = sync(get("/rest/ships").param("pageSize", "40"));
+
+        MockHttpServletResponse response = async(compressing, get("/rest/async/ships").param("pageSize", "40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(plain, StreamUtils.copyToString(
+                new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())), StandardCharsets.UTF_8));
+    }
+
+    private String sync(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static MockHttpServletResponse async(MockMvc mockMvc, RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+}
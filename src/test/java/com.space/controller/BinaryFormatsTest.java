@@ -0,0 +1,72 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Expects the first id after test.sql, see CreateShipTest.
+@TestPropertySource(properties = "cosmoport.ship.id.increment-size=1")
+public class BinaryFormatsTest extends AbstractTest {
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.valueOf("application/cbor");
+
+    private ObjectMapper json = new ObjectMapper();
+    private ObjectMapper smile = new ObjectMapper(new SmileFactory());
+    private ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    @Test
+    public void listIsEncodedAsRequestedByAccept() throws Exception {
+        byte[] jsonBody = body(MediaType.APPLICATION_JSON_UTF8);
+        byte[] smileBody = body(SMILE);
+        byte[] cborBody = body(CBOR);
+
+        JsonNode expected = json.readTree(jsonBody);
+        assertEquals(expected, smile.readTree(smileBody));
+        assertEquals(expected, cbor.readTree(cborBody));
+        assertTrue(smileBody.length < jsonBody.length);
+        assertTrue(cborBody.length < jsonBody.length);
+    }
+
+    @Test
+    public void jsonIsTheDefault() throws Exception {
+        mockMvc.perform(get("/rest/ships/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void binaryRequestBodiesAreAccepted() throws Exception {
+        JsonNode ship = json.readTree(TestsHelper.IS_USED_TRUE_JSON);
+        byte[] response = mockMvc.perform(post("/rest/ships/")
+                .contentType(CBOR)
+                .accept(SMILE)
+                .content(cbor.writeValueAsBytes(ship)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode created = smile.readTree(response);
+        assertEquals(41, created.get("id").asLong());
+        assertEquals(ship.get("name"), created.get("name"));
+    }
+
+    private byte[] body(MediaType mediaType) throws Exception {
+        return mockMvc.perform(get("/rest/ships").param("pageSize", "40").accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+}
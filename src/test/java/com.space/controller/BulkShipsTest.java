@@ -0,0 +1,132 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "cosmoport.ship.bulk.chunk-size=3")
+public class BulkShipsTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void deleteShipsByFilterTest() throws Exception {
+        int expected = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()).size();
+
+        String deleted = mockMvc.perform(delete("/rest/ships/bulk?shipType=MILITARY"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Возвращается не правильное количество удаленных кораблей.", String.valueOf(expected), deleted);
+        assertEquals("Корабли не удалены запросом DELETE /rest/ships/bulk.", "0", count("?shipType=MILITARY"));
+        assertEquals("Удалены лишние корабли запросом DELETE /rest/ships/bulk.",
+                String.valueOf(40 - expected), count(""));
+    }
+
+    //test2
+    @Test
+    public void bulkChangesWithoutFilterTest() throws Exception {
+        mockMvc.perform(delete("/rest/ships/bulk"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/ships/bulk?name=")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"planet\":\"Venus\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void updateShipsWithoutRatingChangeTest() throws Exception {
+        int expected = testsHelper.getShipInfosByPlanet("Mars", testsHelper.getAllShips()).size();
+
+        String updated = mockMvc.perform(post("/rest/ships/bulk?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"planet\":\"Venus\", \"crewSize\": 7}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Возвращается не правильное количество измененных кораблей.", String.valueOf(expected), updated);
+        assertEquals("Корабли не изменены запросом POST /rest/ships/bulk.",
+                String.valueOf(expected), count("?planet=Venus&minCrewSize=7&maxCrewSize=7"));
+        assertEquals("Корабли не изменены запросом POST /rest/ships/bulk.", "0", count("?planet=Mars"));
+    }
+
+    //test4
+    @Test
+    public void updateShipsRecomputesRatingTest() throws Exception {
+        List<ShipInfoTest> usedShips = testsHelper.getShipInfosByIsUsed(true, testsHelper.getAllShips());
+
+        String updated = mockMvc.perform(post("/rest/ships/bulk?isUsed=true")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"isUsed\":false}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Возвращается не правильное количество измененных кораблей.", String.valueOf(usedShips.size()), updated);
+
+        for (ShipInfoTest ship : usedShips) {
+            String contentAsString = mockMvc.perform(get("/rest/ships/" + ship.id)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            ShipInfoTest actual = mapper.readValue(contentAsString, ShipInfoTest.class);
+            assertEquals("Не пересчитан рейтинг корабля " + ship.id + ".", rating(ship.speed, false, ship.prodDate), actual.rating);
+            assertEquals("Не изменен корабль " + ship.id + ".", false, actual.isUsed);
+        }
+    }
+
+    //test5
+    @Test
+    public void updateShipsWithConstantRatingTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/bulk?shipType=TRANSPORT")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"isUsed\":true, \"speed\":0.5, \"prodDate\":32998274577071}"))
+                .andExpect(status().isOk());
+
+        awaitBulkChange();
+        String contentAsString = mockMvc.perform(get("/rest/ships?shipType=TRANSPORT&pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        for (ShipInfoTest actual : mapper.readValue(contentAsString, typeReference)) {
+            assertEquals("Не пересчитан рейтинг корабля " + actual.id + ".", rating(0.5, true, 32998274577071L), actual.rating);
+        }
+    }
+
+    // Lists and counts may be answered by a read model that catches up after the commit.
+    protected void awaitBulkChange() throws Exception {
+    }
+
+    private String count(String query) throws Exception {
+        awaitBulkChange();
+        return mockMvc.perform(get("/rest/ships/count" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static Double rating(double speed, boolean isUsed, long prodDate) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(new Date(prodDate));
+        double rating = 80 * speed * (isUsed ? 0.5 : 1) / (3019 - calendar.get(Calendar.YEAR) + 1);
+        return Double.parseDouble(String.format(Locale.US, "%.2f", rating));
+    }
+}
@@ -0,0 +1,40 @@
+package com.space.controller;
+
+import com.space.service.cache.EntityCacheStatistics;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("l2cache")
+public class CachedEntityGetShipTest extends GetShipTest {
+
+    private EntityCacheStatistics statistics;
+
+    @Autowired
+    public void setStatistics(EntityCacheStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    //test5
+    @Test
+    public void repeatedGetShipIsServedFromCacheTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/15")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        long loads = statistics.getEntityLoads();
+        long hits = statistics.getShipHits();
+
+        mockMvc.perform(get("/rest/ships/15")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        assertEquals("Повторный GET /rest/ships/{id} загружает корабль из базы данных.", loads, statistics.getEntityLoads());
+        assertTrue("Повторный GET /rest/ships/{id} не использует кэш второго уровня.", statistics.getShipHits() > hits);
+    }
+}
@@ -0,0 +1,7 @@
+package com.space.controller;
+
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("cache")
+public class CachedGetAllTest extends GetAllTest {
+}
@@ -0,0 +1,7 @@
+package com.space.controller;
+
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("coalesce")
+public class CoalescedGetCountTest extends GetCountTest {
+}
@@ -0,0 +1,204 @@
+package com.space.controller;
+
+import com.space.config.CompressionFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CompressionAndResourcesTest extends AbstractTest {
+
+    @Before
+    @Override
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(new CompressionFilter(), new ResourceUrlEncodingFilter())
+                .build();
+    }
+
+    @Test
+    public void largeRestResponsesAreGzipped() throws Exception {
+        String plain = mockMvc.perform(get("/rest/ships").param("pageSize", "40"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships").param("pageSize", "40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn().getResponse();
+
+        byte[] compressed = response.getContentAsByteArray();
+        assertTrue(compressed.length < plain.length());
+        assertEquals(plain, read(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void deflateIsUsedWhenGzipIsNotAccepted() throws Exception {
+        String plain = mockMvc.perform(get("/rest/ships").param("pageSize", "40"))
+                .andReturn().getResponse().getContentAsString();
+
+        byte[] compressed = mockMvc.perform(get("/rest/ships").param("pageSize", "40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "deflate"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(plain, read(new InflaterInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void smallResponsesAreNotCompressed() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships/count")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("40", response.getContentAsString());
+        assertEquals(2, response.getContentLength());
+    }
+
+    @Test
+    public void resourcesHaveContentHashedUrlsAndLongLivedCaching() throws Exception {
+        ResourceUrlProvider urlProvider = context.getBean(ResourceUrlProvider.class);
+        String versioned = urlProvider.getForLookupPath("/resources/scripts.js");
+        assertTrue(versioned.matches("/resources/scripts-[0-9a-f]{32}\\.js"));
+
+        mockMvc.perform(get(versioned).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        mockMvc.perform(get("/resources/scripts-00000000000000000000000000000000.js"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void precompressedResourcesAreServedAsTheyAre() throws Exception {
+        String versioned = context.getBean(ResourceUrlProvider.class)
+                .getForLookupPath("/resources/precompressed-fixture.txt");
+        byte[] precompressed = Files.readAllBytes(Paths.get("src/main/webapp/resources/precompressed-fixture.txt.gz"));
+
+        MockHttpServletResponse response = mockMvc.perform(get(versioned).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+
+        assertArrayEquals(precompressed, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void writeListenerTurnsCompressionOff() throws Exception {
+        byte[] body = new byte[4096];
+        Arrays.fill(body, (byte) 'a');
+        MockHttpServletResponse raw = new MockHttpServletResponse();
+        ListeningStream stream = new ListeningStream(raw);
+        WriteListener listener = new NoopWriteListener();
+
+        new CompressionFilter().doFilter(gzipRequest(), stream.wrap(raw), (request, response) -> {
+            response.setContentType("application/json");
+            ServletOutputStream out = response.getOutputStream();
+            out.setWriteListener(listener);
+            out.write(body);
+        });
+
+        assertSame(listener, stream.listener);
+        assertNull(raw.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(body, raw.getContentAsByteArray());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void writeListenerCannotJoinCompressedOutput() throws Exception {
+        MockHttpServletResponse raw = new MockHttpServletResponse();
+        new CompressionFilter().doFilter(gzipRequest(), new ListeningStream(raw).wrap(raw), (request, response) -> {
+            response.setContentType("application/json");
+            ServletOutputStream out = response.getOutputStream();
+            out.write(new byte[4096]);
+            out.setWriteListener(new NoopWriteListener());
+        });
+    }
+
+    private static MockHttpServletRequest gzipRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/rest/ships");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return request;
+    }
+
+    private static String read(InputStream in) throws Exception {
+        return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+    }
+
+    // The mock response's own stream refuses write listeners.
+    private static class ListeningStream extends ServletOutputStream {
+
+        private final MockHttpServletResponse response;
+        private WriteListener listener;
+
+        ListeningStream(MockHttpServletResponse response) {
+            this.response = response;
+        }
+
+        HttpServletResponse wrap(MockHttpServletResponse response) {
+            return new HttpServletResponseWrapper(response) {
+                @Override
+                public ServletOutputStream getOutputStream() {
+                    return ListeningStream.this;
+                }
+            };
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            response.getOutputStream().write(b);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            listener = writeListener;
+        }
+    }
+
+    private static class NoopWriteListener implements WriteListener {
+
+        @Override
+        public void onWritePossible() {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+    }
+}
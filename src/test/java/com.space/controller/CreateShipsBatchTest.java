@@ -0,0 +1,76 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Expects ids 41 and 42, see CreateShipTest.
+@TestPropertySource(properties = "cosmoport.ship.id.increment-size=1")
+public class CreateShipsBatchTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> shipsType = new TypeReference<List<ShipInfoTest>>() {
+    };
+    private TypeReference<List<Integer>> indexesType = new TypeReference<List<Integer>>() {
+    };
+
+    //test1
+    @Test
+    public void createShipsBatchTest() throws Exception {
+        String content = "[" + TestsHelper.IS_USED_TRUE_JSON + "," + TestsHelper.EMPTY_NAME_JSON + ","
+                + TestsHelper.NO_IS_USED_JSON + "," + TestsHelper.TOO_BIG_CREW_SIZE_JSON + "]";
+
+        String contentAsString = mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(content))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode result = mapper.readTree(contentAsString);
+
+        List<ShipInfoTest> expected = Arrays.asList(
+                new ShipInfoTest(41L, "123456789", "Earth", ShipType.MILITARY, 32998274577071L, true, 0.8, 14, 6.4),
+                new ShipInfoTest(42L, "123456789", "Earth", ShipType.MILITARY, 32998274577071L, false, 0.8, 14, 12.8));
+        assertEquals("Возвращается не правильный список созданных кораблей при запросе POST /rest/ships/batch.",
+                expected, mapper.readValue(result.get("created").traverse(), shipsType));
+        assertEquals("Возвращается не правильный список отклоненных кораблей при запросе POST /rest/ships/batch.",
+                Arrays.asList(1, 3), mapper.readValue(result.get("rejected").traverse(), indexesType));
+
+        String count = mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Созданные пакетом корабли не сохранены.", "42", count);
+    }
+
+    //test2
+    @Test
+    public void createShipsBatchAllInvalidTest() throws Exception {
+        String contentAsString = mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[{}, null]"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode result = mapper.readTree(contentAsString);
+
+        assertEquals("Возвращается не правильный список созданных кораблей при запросе POST /rest/ships/batch.",
+                Collections.emptyList(), mapper.readValue(result.get("created").traverse(), shipsType));
+        assertEquals("Возвращается не правильный список отклоненных кораблей при запросе POST /rest/ships/batch.",
+                Arrays.asList(0, 1), mapper.readValue(result.get("rejected").traverse(), indexesType));
+    }
+}
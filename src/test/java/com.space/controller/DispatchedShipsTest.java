@@ -0,0 +1,146 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.CompressionFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// ShipController's handlers on the MVC task executor, with room for one request at a time.
+@TestPropertySource(properties = {
+        "cosmoport.mvc.task-executor=org.springframework.core.task.SimpleAsyncTaskExecutor",
+        "cosmoport.mvc.max-requests=1"})
+public class DispatchedShipsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<String> threads = new CopyOnWriteArrayList<>();
+    private CountDownLatch release;
+
+    @Before
+    @Override
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(new CompressionFilter()).build();
+    }
+
+    @After
+    public void releaseHeld() {
+        if (release != null) {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void handlersRunOnTheTaskExecutor() throws Exception {
+        MockHttpServletResponse response = perform(get("/rest/ships").param("order", "ID").param("pageSize", "7"));
+
+        assertEquals(200, response.getStatus());
+        JsonNode ships = mapper.readTree(response.getContentAsString());
+        assertEquals(7, ships.size());
+        assertEquals(1, ships.get(0).get("id").asLong());
+        assertEquals(1, threads.size());
+        assertTrue(threads.get(0), threads.get(0).startsWith("SimpleAsyncTaskExecutor"));
+    }
+
+    @Test
+    public void errorsKeepTheirStatus() throws Exception {
+        assertEquals(404, perform(get("/rest/ships/1000")).getStatus());
+        assertEquals(400, perform(get("/rest/ships/0")).getStatus());
+    }
+
+    @Test
+    public void voidHandlersWriteTheirOwnResponse() throws Exception {
+        MockHttpServletResponse deleted = perform(delete("/rest/ships/1"));
+        assertEquals(200, deleted.getStatus());
+        assertNull(deleted.getForwardedUrl());
+        assertEquals(404, perform(get("/rest/ships/1")).getStatus());
+
+        MockHttpServletResponse export = perform(get("/rest/ships/export"));
+        assertEquals(200, export.getStatus());
+        assertNull(export.getForwardedUrl());
+        assertEquals(39, export.getContentAsString().split("\n").length);
+    }
+
+    @Test
+    public void compressionStillApplies() throws Exception {
+        String plain = perform(get("/rest/ships").param("pageSize", "40")).getContentAsString();
+
+        MockHttpServletResponse response = perform(get("/rest/ships").param("pageSize", "40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(plain, StreamUtils.copyToString(
+                new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void requestsOverTheLimitAreRefused() throws Exception {
+        release = new CountDownLatch(1);
+        MvcResult held = mockMvc.perform(probed(get("/rest/ships/2"))).andReturn();
+        assertTrue(held.getRequest().isAsyncStarted());
+
+        MvcResult refused = mockMvc.perform(probed(get("/rest/ships/3"))).andReturn();
+        assertFalse(refused.getRequest().isAsyncStarted());
+        assertEquals(503, refused.getResponse().getStatus());
+
+        release.countDown();
+        assertEquals(200, dispatch(held).getStatus());
+        assertEquals(200, perform(get("/rest/ships/3")).getStatus());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(probed(builder)).andReturn();
+        assertTrue(result.getRequest().isAsyncStarted());
+        return dispatch(result);
+    }
+
+    // Without an async timeout MockMvc would not wait for the result.
+    private MockHttpServletResponse dispatch(MvcResult result) throws Exception {
+        result.getAsyncResult(5000);
+        return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+    }
+
+    // Records the thread each handler runs on, and holds it while release is set.
+    private MockHttpServletRequestBuilder probed(MockHttpServletRequestBuilder builder) {
+        return builder.with(request -> {
+            WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor("probe",
+                    new CallableProcessingInterceptor() {
+                        @Override
+                        public <T> void preProcess(NativeWebRequest webRequest, Callable<T> task) throws Exception {
+                            threads.add(Thread.currentThread().getName());
+                            if (release != null) {
+                                release.await(5, TimeUnit.SECONDS);
+                            }
+                        }
+                    });
+            return request;
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A fetch size well below the row count, so the export clears the persistence context several times.
+@TestPropertySource(properties = "cosmoport.ship.export.fetch-size=7")
+public class ExportShipsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void exportsAllShipsAsNdjsonInIdOrder() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = content.split("\n");
+        assertEquals(40, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(i + 1, mapper.readTree(lines[i]).get("id").asLong());
+        }
+        JsonNode first = mapper.readTree(lines[0]);
+        assertEquals("Orion III", first.get("name").asText());
+        assertEquals("MERCHANT", first.get("shipType").asText());
+        assertEquals(true, first.get("isUsed").asBoolean());
+        assertEquals(617, first.get("crewSize").asInt());
+        assertEquals(1.31, first.get("rating").asDouble(), 0);
+    }
+
+    @Test
+    public void everyNdjsonLineIsOneObject() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/export").param("planet", "Mars"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(content.endsWith("}\n"));
+        for (String line : content.split("\n")) {
+            assertTrue(line, line.startsWith("{") && line.endsWith("}"));
+        }
+    }
+
+    @Test
+    public void exportsFilteredShipsAsCsv() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/export")
+                .param("format", "csv")
+                .param("planet", "Mars")
+                .param("shipType", "MERCHANT"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = content.split("\n");
+        assertEquals("id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating", lines[0]);
+        assertEquals(countOf("Mars", "MERCHANT") + 1, lines.length);
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split(",");
+            assertEquals("Mars", fields[2]);
+            assertEquals("MERCHANT", fields[3]);
+        }
+        assertEquals("1", lines[1].split(",")[0]);
+    }
+
+    @Test
+    public void unknownFormatIsRejected() throws Exception {
+        mockMvc.perform(get("/rest/ships/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private int countOf(String planet, String shipType) throws Exception {
+        return Integer.parseInt(mockMvc.perform(get("/rest/ships/count")
+                .param("planet", planet)
+                .param("shipType", shipType))
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,90 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetAllCursorTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getAllWithCursorMatchesOffsetPaging() throws Exception {
+        for (ShipOrder order : ShipOrder.values()) {
+            List<ShipInfoTest> actual = new ArrayList<>();
+            String cursor = "";
+            while (cursor != null) {
+                MvcResult result = mockMvc.perform(get("/rest/ships?order=" + order + "&pageSize=7&cursor=" + cursor)
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                actual.addAll(mapper.readValue(result.getResponse().getContentAsString(), typeReference));
+                cursor = result.getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+            }
+            String contentAsString = mockMvc.perform(get("/rest/ships?order=" + order + "&pageSize=100")
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<ShipInfoTest> expected = mapper.readValue(contentAsString, typeReference);
+
+            assertEquals("Возвращается не правильный результат при постраничном обходе GET /rest/ships с параметром cursor и order=" + order + ".", expected, actual);
+        }
+    }
+
+    //test2
+    @Test
+    public void getAllWithCursorAndFilters() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/ships?isUsed=false&order=RATING&pageSize=4&cursor=")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        String cursor = result.getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+
+        String contentAsString = mockMvc.perform(get("/rest/ships?isUsed=false&order=RATING&pageSize=4&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<ShipInfoTest> actual = mapper.readValue(contentAsString, typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 4,
+                testsHelper.getShipInfosByOrder(ShipOrder.RATING,
+                        testsHelper.getShipInfosByIsUsed(false, testsHelper.getAllShips())));
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships с параметрами isUsed, order и cursor.", expected, actual);
+    }
+
+    //test3
+    @Test
+    public void getAllWithInvalidCursor() throws Exception {
+        mockMvc.perform(get("/rest/ships?cursor=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void getAllWithCursorOfAnotherOrder() throws Exception {
+        String cursor = mockMvc.perform(get("/rest/ships?order=SPEED&cursor=")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/rest/ships?order=RATING&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+}
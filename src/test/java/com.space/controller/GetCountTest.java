@@ -152,4 +152,19 @@ public class GetCountTest extends AbstractTest {
 
         assertSame("Во звращается не правильный результат при запросе GET /rest/ships/count с параметрами isUsed, minSpeed и maxSpeed.", expected, actual);
     }
+
+    //test9
+    @Test
+    public void getCountWithLikeWildcardsInNameMatchesLiterally() throws Exception {
+        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?name=_")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        String contentAsString = result.getResponse().getContentAsString();
+        int actual = Integer.parseInt(contentAsString);
+        int expected = testsHelper.getShipInfosByName("_", testsHelper.getAllShips()).size();
+
+        assertSame("Возвращается не правильный результат при запросе GET /rest/ships/count с параметром name, содержащим символы шаблона LIKE.", expected, actual);
+    }
 }
\ No newline at end of file
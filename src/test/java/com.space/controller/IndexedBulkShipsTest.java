@@ -0,0 +1,24 @@
+package com.space.controller;
+
+import com.space.service.index.ShipIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.Assert.assertTrue;
+
+@ActiveProfiles("index")
+public class IndexedBulkShipsTest extends BulkShipsTest {
+
+    private ShipIndex shipIndex;
+
+    @Autowired
+    public void setShipIndex(ShipIndex shipIndex) {
+        this.shipIndex = shipIndex;
+    }
+
+    // Bulk changes reach the index through a background reload.
+    @Override
+    protected void awaitBulkChange() throws Exception {
+        assertTrue(shipIndex.awaitReloads(10000));
+    }
+}
@@ -0,0 +1,7 @@
+package com.space.controller;
+
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("index")
+public class IndexedGetAllTest extends GetAllTest {
+}
@@ -0,0 +1,81 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import com.space.service.ingest.ShipIngestQueue;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("ingest")
+@TestPropertySource(properties = "cosmoport.ingest.linger=1000")
+public class IngestedCreateShipTest extends CreateShipTest {
+
+    private ShipIngestQueue ingestQueue;
+
+    @Autowired
+    public void setIngestQueue(ShipIngestQueue ingestQueue) {
+        this.ingestQueue = ingestQueue;
+    }
+
+    // test.sql recreates the tables before the next test, so nothing may still be queued by then.
+    @After
+    public void awaitWritten() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (ingestQueue.getPendingCount() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void queuedShipIsReadableAndWrittenLater() throws Exception {
+        String created = mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.IS_USED_TRUE_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(41, new ObjectMapper().readTree(created).get("id").asLong());
+
+        String queued = mockMvc.perform(get("/rest/ships/41"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("123456789", new ObjectMapper().readTree(queued).get("name").asText());
+
+        assertTrue(ingestQueue.awaitWritten(41L, 10000));
+        mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("41"));
+    }
+
+    @Test
+    public void queuedShipCanBeUpdatedAndDeletedAtOnce() throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.IS_USED_TRUE_JSON))
+                .andExpect(status().isOk());
+
+        String updated = mockMvc.perform(post("/rest/ships/41")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Renamed\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Renamed", new ObjectMapper().readTree(updated).get("name").asText());
+
+        mockMvc.perform(delete("/rest/ships/41"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/41"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,59 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A context of its own, so no block reserved before test.sql reseeded ship_seq is still in use.
+@TestPropertySource(properties = "cosmoport.ship.id.increment-size=20")
+public class ShipIdBlocksTest extends AbstractTest {
+
+    private static final int SHIPS = 50;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void shipsBeyondOneBlockGetUniqueNewIds() throws Exception {
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < SHIPS / 2; i++) {
+            batch.append(i == 0 ? "" : ",").append(TestsHelper.IS_USED_TRUE_JSON);
+        }
+        JsonNode created = mapper.readTree(mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(batch.append("]").toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("created");
+
+        Set<Long> ids = new HashSet<>();
+        for (JsonNode ship : created) {
+            ids.add(ship.get("id").asLong());
+        }
+        for (int i = 0; i < SHIPS / 2; i++) {
+            ids.add(mapper.readTree(mockMvc.perform(post("/rest/ships/")
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .content(TestsHelper.IS_USED_TRUE_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString()).get("id").asLong());
+        }
+
+        assertEquals(SHIPS, ids.size());
+        for (Long id : ids) {
+            assertTrue(id > 40);
+        }
+        assertEquals(String.valueOf(40 + SHIPS), mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
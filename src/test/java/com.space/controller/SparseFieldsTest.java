@@ -0,0 +1,95 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SparseFieldsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void listReturnsOnlyRequestedFieldsOfTheSamePage() throws Exception {
+        JsonNode full = read(get("/rest/ships").param("planet", "e").param("order", "SPEED")
+                .param("pageNumber", "1").param("pageSize", "5"));
+        JsonNode sparse = read(get("/rest/ships").param("planet", "e").param("order", "SPEED")
+                .param("pageNumber", "1").param("pageSize", "5").param("fields", "name,prodDate,rating"));
+
+        assertEquals(5, sparse.size());
+        for (int i = 0; i < sparse.size(); i++) {
+            assertEquals(Arrays.asList("id", "name", "prodDate", "rating"), fieldNames(sparse.get(i)));
+            for (String field : fieldNames(sparse.get(i))) {
+                assertEquals(full.get(i).get(field), sparse.get(i).get(field));
+            }
+        }
+    }
+
+    @Test
+    public void getReturnsOnlyRequestedFields() throws Exception {
+        JsonNode full = read(get("/rest/ships/12"));
+        JsonNode sparse = read(get("/rest/ships/12").param("fields", "shipType, isUsed,speed,crewSize"));
+
+        assertEquals(Arrays.asList("id", "shipType", "isUsed", "speed", "crewSize"), fieldNames(sparse));
+        for (String field : fieldNames(sparse)) {
+            assertEquals(full.get(field), sparse.get(field));
+        }
+    }
+
+    @Test
+    public void cursorPagesWithFieldsMatchFullPages() throws Exception {
+        List<JsonNode> full = new ArrayList<>();
+        String cursor = "";
+        do {
+            MvcResult result = mockMvc.perform(get("/rest/ships").param("order", "RATING").param("pageSize", "7")
+                    .param("cursor", cursor).param("fields", "name"))
+                    .andExpect(status().isOk()).andReturn();
+            for (JsonNode row : mapper.readTree(result.getResponse().getContentAsString())) {
+                assertEquals(Arrays.asList("id", "name"), fieldNames(row));
+                full.add(row);
+            }
+            cursor = result.getResponse().getHeader(ShipController.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+
+        JsonNode all = read(get("/rest/ships").param("order", "RATING").param("pageSize", "40"));
+        assertEquals(40, full.size());
+        for (int i = 0; i < full.size(); i++) {
+            assertEquals(all.get(i).get("id"), full.get(i).get("id"));
+            assertEquals(all.get(i).get("name"), full.get(i).get("name"));
+        }
+    }
+
+    @Test
+    public void unknownFieldIsRejected() throws Exception {
+        mockMvc.perform(get("/rest/ships").param("fields", "name,color")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships/1").param("fields", "")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void missingShipIsNotFound() throws Exception {
+        mockMvc.perform(get("/rest/ships/410").param("fields", "name")).andExpect(status().isNotFound());
+    }
+
+    private JsonNode read(MockHttpServletRequestBuilder request) throws Exception {
+        return mapper.readTree(mockMvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        for (Iterator<String> it = node.fieldNames(); it.hasNext(); ) {
+            names.add(it.next());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,93 @@
+package com.space.service;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShipCalculationsTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void round2MatchesStringFormat() {
+        for (int i = 0; i < 200_000; i++) {
+            assertRound2(random.nextDouble() * 100);
+            assertRound2(random.nextDouble());
+            assertRound2(-random.nextDouble() * 10);
+        }
+        for (int thousandths = 0; thousandths < 100_000; thousandths += 5) {
+            assertRound2(thousandths / 1000.0);
+            assertRound2(Math.nextUp(thousandths / 1000.0));
+            assertRound2(Math.nextDown(thousandths / 1000.0));
+        }
+        assertRound2(0.0);
+        assertRound2(-0.0);
+        assertRound2(-0.001);
+        assertRound2(Double.NaN);
+        assertRound2(1.0E15 + 0.125);
+    }
+
+    @Test
+    public void yearMatchesCalendar() {
+        ZoneId zone = ZoneId.systemDefault();
+        for (int year = 2700; year <= 3100; year++) {
+            long start = LocalDate.of(year, 1, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+            assertYear(start);
+            assertYear(start - 1);
+            assertYear(start + 1);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertYear((long) (random.nextDouble() * 40_000_000_000_000L));
+        }
+        assertYear(-1);
+        assertYear(0);
+    }
+
+    @Test
+    public void ratingAndYearDoNotAllocate() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+        double sink = 0;
+        for (int i = 0; i < 100_000; i++) {
+            sink += compute(i);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            sink += compute(i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue("allocated " + allocated + " bytes", allocated < 100_000);
+        assertTrue(sink > 0);
+    }
+
+    private static double compute(int i) {
+        long prodDate = 26192246400000L + (i % 70_000) * 86_400_000L;
+        int year = ShipCalculations.year(prodDate);
+        return ShipCalculations.rating(ShipCalculations.round2(0.01 + (i % 98) / 100.0), i % 2 == 0, year);
+    }
+
+    private static void assertRound2(double value) {
+        double expected = Double.parseDouble(String.format("%.2f", value).replaceAll(",", "."));
+        assertEquals(String.valueOf(value), Double.doubleToLongBits(expected),
+                Double.doubleToLongBits(ShipCalculations.round2(value)));
+    }
+
+    private static void assertYear(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(new Date(millis));
+        assertEquals(String.valueOf(millis), calendar.get(Calendar.YEAR), ShipCalculations.year(millis));
+    }
+}
@@ -0,0 +1,113 @@
+package com.space.service.cache;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import com.space.service.ShipsChangedEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ShipQueryCacheTest {
+
+    private ShipQueryCache queryCache;
+    private AtomicInteger loads;
+
+    @Before
+    public void setup() {
+        queryCache = new ShipQueryCache();
+        queryCache.setMaxSize(2);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void repeatedQueriesAreServedFromCache() {
+        assertEquals(Integer.valueOf(1), queryCache.getShipsCount(filter("a"), loader()));
+        assertEquals(Integer.valueOf(1), queryCache.getShipsCount(filter("a"), loader()));
+        assertEquals(Integer.valueOf(2), queryCache.getShipsCount(filter(null), loader()));
+        assertEquals(Integer.valueOf(2), queryCache.getShipsCount(filter(""), loader()));
+
+        assertEquals(2, queryCache.getHits());
+        assertEquals(2, queryCache.getMisses());
+        assertEquals(0.5, queryCache.getHitRate(), 1e-9);
+        assertEquals(2, queryCache.getSize());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        queryCache.getShipsCount(filter("a"), loader());
+        queryCache.getShipsCount(filter("b"), loader());
+        queryCache.getShipsCount(filter("a"), loader());
+        queryCache.getShipsCount(filter("c"), loader());
+        queryCache.getShipsCount(filter("a"), loader());
+        queryCache.getShipsCount(filter("b"), loader());
+
+        assertEquals(4, loads.get());
+        assertEquals(2, queryCache.getEvictions());
+    }
+
+    @Test
+    public void writesInvalidateEntries() {
+        queryCache.getShipsList(filter("a"), ShipOrder.ID, 0, 3, Collections::emptyList);
+        queryCache.getShipsCount(filter("a"), loader());
+        queryCache.onShipsChanged(ShipsChangedEvent.deleted(1L));
+
+        assertEquals(0, queryCache.getSize());
+        assertEquals(Integer.valueOf(2), queryCache.getShipsCount(filter("a"), loader()));
+    }
+
+    @Test
+    public void resultLoadedDuringWriteIsNotStored() {
+        queryCache.getShipsCount(filter("a"), () -> {
+            queryCache.onShipsChanged(ShipsChangedEvent.deleted(1L));
+            return 0;
+        });
+
+        assertEquals(0, queryCache.getSize());
+        assertEquals(Integer.valueOf(1), queryCache.getShipsCount(filter("a"), loader()));
+    }
+
+    @Test
+    public void cachedPagesAreReadOnlyCopies() {
+        Ship entity = new Ship();
+        entity.setId(1L);
+        entity.setName("Orion III");
+        entity.setProdDate(new java.sql.Date(32998274577071L));
+        List<Ship> loaded = queryCache.getShipsList(filter("a"), ShipOrder.ID, 0, 3,
+                () -> Collections.singletonList(entity));
+        entity.setName("Changed after loading");
+        entity.getProdDate().setTime(0);
+
+        List<Ship> cached = queryCache.getShipsList(filter("a"), ShipOrder.ID, 0, 3, Collections::emptyList);
+        assertSame(loaded, cached);
+        Ship ship = cached.get(0);
+        assertNotSame(entity, ship);
+        assertEquals("Orion III", ship.getName());
+        assertEquals(new java.sql.Date(32998274577071L), ship.getProdDate());
+
+        ship.getProdDate().setTime(0);
+        assertEquals(new java.sql.Date(32998274577071L), ship.getProdDate());
+        try {
+            ship.setName("Changed by a caller");
+            fail("cached ships must be read-only");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    private Supplier<Integer> loader() {
+        return loads::incrementAndGet;
+    }
+
+    private static ShipFilter filter(String name) {
+        return new ShipFilter(name, null, null, null, null, null, null, null, null, null, null, null);
+    }
+}
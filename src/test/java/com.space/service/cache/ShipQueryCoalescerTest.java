@@ -0,0 +1,179 @@
+package com.space.service.cache;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import com.space.service.ShipsChangedEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ShipQueryCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    private ShipQueryCoalescer coalescer;
+    private ExecutorService executor;
+    private AtomicInteger loads;
+    private CountDownLatch release;
+
+    @Before
+    public void setup() {
+        coalescer = new ShipQueryCoalescer();
+        executor = Executors.newFixedThreadPool(CALLERS);
+        loads = new AtomicInteger();
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentIdenticalQueriesShareOneExecution() throws Exception {
+        List<Future<List<Ship>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> coalescer.getShipsList(filter("a"), ShipOrder.ID, 0, 3, () -> {
+                loads.incrementAndGet();
+                await();
+                return Collections.singletonList(new Ship());
+            })));
+        }
+        waitUntil(() -> coalescer.getCollapsed() == CALLERS - 1);
+        release.countDown();
+
+        List<Ship> first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<List<Ship>> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, coalescer.getExecutions());
+        assertEquals(CALLERS - 1, coalescer.getCollapsed());
+        assertEquals(0, coalescer.getInFlight());
+        assertArrayEquals(new String[]{(CALLERS - 1) + "/" + CALLERS + " "
+                + new ShipQueryKey(filter("a"), ShipOrder.ID, 0, 3)}, coalescer.getCollapsedByKey());
+    }
+
+    @Test
+    public void differentQueriesRunSeparately() throws Exception {
+        Future<Integer> a = executor.submit(() -> coalescer.getShipsCount(filter("a"), this::blockingLoad));
+        Future<Integer> b = executor.submit(() -> coalescer.getShipsCount(filter("b"), this::blockingLoad));
+        Future<List<Ship>> list = executor.submit(() -> coalescer.getShipsList(filter("a"), ShipOrder.ID, 0, 3, () -> {
+            blockingLoad();
+            return Collections.emptyList();
+        }));
+        waitUntil(() -> coalescer.getInFlight() == 3);
+        release.countDown();
+
+        a.get(5, TimeUnit.SECONDS);
+        b.get(5, TimeUnit.SECONDS);
+        list.get(5, TimeUnit.SECONDS);
+        assertEquals(3, loads.get());
+        assertEquals(0, coalescer.getCollapsed());
+    }
+
+    @Test
+    public void finishedQueriesAreNotReused() {
+        assertEquals(Integer.valueOf(1), coalescer.getShipsCount(filter("a"), loads::incrementAndGet));
+        assertEquals(Integer.valueOf(2), coalescer.getShipsCount(filter("a"), loads::incrementAndGet));
+
+        assertEquals(2, coalescer.getExecutions());
+        assertEquals(0, coalescer.getCollapsed());
+    }
+
+    @Test
+    public void waitingCallersGetTheFailure() throws Exception {
+        IllegalStateException failure = new IllegalStateException("query failed");
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> coalescer.getShipsCount(filter("a"), () -> {
+                await();
+                throw failure;
+            })));
+        }
+        waitUntil(() -> coalescer.getCollapsed() == CALLERS - 1);
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("the shared query failed");
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals(CALLERS - 1, coalescer.getCollapsed());
+    }
+
+    @Test
+    public void queriesAfterAWriteDoNotJoinEarlierOnes() throws Exception {
+        Future<Integer> before = executor.submit(() -> coalescer.getShipsCount(filter("a"), this::blockingLoad));
+        waitUntil(() -> coalescer.getInFlight() == 1);
+        coalescer.onShipsChanged(ShipsChangedEvent.deleted(1L));
+
+        Future<Integer> after = executor.submit(() -> coalescer.getShipsCount(filter("a"), this::blockingLoad));
+        waitUntil(() -> loads.get() == 2);
+        release.countDown();
+
+        assertEquals(Integer.valueOf(1), before.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(2), after.get(5, TimeUnit.SECONDS));
+        assertEquals(0, coalescer.getCollapsed());
+    }
+
+    @Test
+    public void onlyRecentKeysAreTracked() {
+        coalescer.setTrackedKeys(2);
+        coalescer.getShipsCount(filter("a"), loads::incrementAndGet);
+        coalescer.getShipsCount(filter("b"), loads::incrementAndGet);
+        coalescer.getShipsCount(filter("c"), loads::incrementAndGet);
+
+        assertEquals(2, coalescer.getCollapsedByKey().length);
+    }
+
+    private Integer blockingLoad() {
+        int load = loads.incrementAndGet();
+        await();
+        return load;
+    }
+
+    private void await() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("timed out");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static ShipFilter filter(String name) {
+        return new ShipFilter(name, null, null, null, null, null, null, null, null, null, null, null);
+    }
+}
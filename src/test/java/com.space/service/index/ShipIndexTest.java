@@ -0,0 +1,325 @@
+package com.space.service.index;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepository;
+import com.space.service.ShipsChangedEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ShipIndexTest {
+
+    private static final ShipFilter NO_FILTER = new ShipFilter(null, null, null, null, null, null,
+            null, null, null, null, null, null);
+
+    // The committed rows, which the index reads back when it gets an event.
+    private final Map<Long, Ship> rows = new LinkedHashMap<>();
+    private final List<Long> reloaded = new ArrayList<>();
+    private final List<Object> published = new CopyOnWriteArrayList<>();
+    // Runs once, after the next read of rows, as a commit landing while the index reloads.
+    private Runnable duringReload;
+    private ShipIndex shipIndex;
+
+    @Before
+    public void setup() {
+        for (Ship ship : Arrays.asList(
+                ship(1L, "Orion III", "Mars", ShipType.MERCHANT, true, 0.82, 617, 1.31),
+                ship(2L, "Daedalus", "Jupiter", ShipType.MERCHANT, true, 0.94, 1619, 1.98),
+                ship(3L, "Eagle Transporter", "Earth", ShipType.TRANSPORT, true, 0.79, 4527, 1.02),
+                ship(4L, "F-302 Mongoose", "Neptune", ShipType.MILITARY, false, 0.24, 2170, 2.13),
+                ship(5L, "Excalibur", "Mercury", ShipType.MILITARY, false, 0.64, 128, 5.69))) {
+            rows.put(ship.getId(), ship);
+        }
+        shipIndex = new ShipIndex();
+        shipIndex.setShipRepository(repository());
+        shipIndex.setEventPublisher(published::add);
+        shipIndex.rebuild(rows.values());
+    }
+
+    @After
+    public void tearDown() {
+        shipIndex.destroy();
+    }
+
+    @Test
+    public void countWithFilters() {
+        assertEquals(5, shipIndex.count(NO_FILTER));
+        assertEquals(2, shipIndex.count(new ShipFilter(null, null, ShipType.MERCHANT, null, null, true,
+                null, null, null, null, null, null)));
+        assertEquals(3, shipIndex.count(new ShipFilter("a", "r", null, null, null, null,
+                0.6, null, null, null, null, null)));
+        assertEquals(1, shipIndex.count(new ShipFilter(null, null, null, null, null, null,
+                null, null, 100, 617, null, 2.0)));
+    }
+
+    @Test
+    public void findOrdersAndPages() {
+        assertEquals(Arrays.asList(4L, 5L), ids(shipIndex.find(NO_FILTER, ShipOrder.SPEED, 0, 2)));
+        assertEquals(Arrays.asList(3L, 1L), ids(shipIndex.find(NO_FILTER, ShipOrder.SPEED, 1, 2)));
+        assertEquals(Arrays.asList(5L), ids(shipIndex.find(NO_FILTER, ShipOrder.RATING, 1, 4)));
+        assertEquals(Collections.emptyList(), ids(shipIndex.find(NO_FILTER, ShipOrder.ID, 3, 2)));
+    }
+
+    @Test
+    public void pagesMatchFullOrdering() {
+        for (ShipOrder order : ShipOrder.values()) {
+            List<Long> expected = ids(shipIndex.find(NO_FILTER, order, 0, 5));
+            List<Long> actual = new ArrayList<>();
+            for (int page = 0; page < 3; page++) {
+                actual.addAll(ids(shipIndex.find(NO_FILTER, order, page, 2)));
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void writesKeepIndexConsistent() {
+        Ship updated = ship(2L, "Daedalus", "Jupiter", ShipType.MILITARY, false, 0.10, 1619, 0.5);
+        rows.put(2L, updated);
+        rows.remove(1L);
+        shipIndex.onShipsChanged(new ShipsChangedEvent(Collections.singletonList(updated),
+                Collections.singletonList(1L)));
+        save(ship(6L, "Hermes", "Venus", ShipType.MERCHANT, false, 0.05, 445, 0.40));
+
+        assertEquals(5, shipIndex.count(NO_FILTER));
+        assertEquals(1, shipIndex.count(new ShipFilter(null, null, ShipType.MERCHANT, null, null, null,
+                null, null, null, null, null, null)));
+        assertEquals(4, shipIndex.count(new ShipFilter(null, null, null, null, null, false,
+                null, null, null, null, null, null)));
+        assertEquals(3, shipIndex.count(new ShipFilter(null, null, ShipType.MILITARY, null, null, false,
+                null, null, null, null, null, null)));
+        assertEquals(Arrays.asList(6L, 2L, 4L), ids(shipIndex.find(NO_FILTER, ShipOrder.SPEED, 0, 3)));
+        assertEquals(Arrays.asList(2L, 3L, 4L, 5L, 6L), ids(shipIndex.find(NO_FILTER, ShipOrder.ID, 0, 10)));
+    }
+
+    @Test
+    public void rangeFiltersFollowWrites() {
+        ShipFilter slowShips = new ShipFilter(null, null, null, null, null, null,
+                null, 0.3, null, null, null, null);
+        ShipFilter smallCrews = new ShipFilter(null, null, null, null, null, null,
+                null, null, 100, 700, null, null);
+        assertEquals(1, shipIndex.count(slowShips));
+        assertEquals(2, shipIndex.count(smallCrews));
+
+        save(ship(3L, "Eagle Transporter", "Earth", ShipType.TRANSPORT, true, 0.15, 650, 0.35));
+        delete(5L);
+
+        assertEquals(Arrays.asList(3L, 4L), ids(shipIndex.find(slowShips, ShipOrder.RATING, 0, 10)));
+        assertEquals(Arrays.asList(1L, 3L), ids(shipIndex.find(smallCrews, ShipOrder.ID, 0, 10)));
+        assertEquals(1, shipIndex.count(new ShipFilter(null, null, null, null, null, null,
+                null, null, null, null, 0.3, 0.4)));
+    }
+
+    @Test
+    public void substringFiltersFollowWrites() {
+        assertEquals(1, shipIndex.count(nameContains("ali")));
+        assertEquals(3, shipIndex.count(nameContains("a")));
+        assertEquals(0, shipIndex.count(nameContains("Alu")));
+        assertEquals(Arrays.asList(1L, 2L), ids(shipIndex.find(new ShipFilter(null, "r", null, null, null, null,
+                null, null, null, null, null, null), ShipOrder.ID, 0, 2)));
+
+        save(ship(2L, "Aluminium Falcon", "Jupiter", ShipType.MERCHANT, true, 0.94, 1619, 1.98));
+        delete(5L);
+
+        assertEquals(0, shipIndex.count(nameContains("ali")));
+        assertEquals(Arrays.asList(2L), ids(shipIndex.find(nameContains("Alu"), ShipOrder.ID, 0, 10)));
+        assertEquals(1, shipIndex.count(new ShipFilter("Falcon", "Jup", null, null, null, null,
+                null, null, null, null, null, null)));
+    }
+
+    @Test
+    public void lateEventsDoNotOverwriteNewerCommits() {
+        Ship first = ship(2L, "Daedalus", "Jupiter", ShipType.MERCHANT, true, 0.50, 1619, 1.00);
+        Ship second = ship(2L, "Daedalus", "Jupiter", ShipType.MERCHANT, true, 0.10, 1619, 0.20);
+        rows.put(2L, first);
+        rows.put(2L, second);
+        shipIndex.onShipsChanged(ShipsChangedEvent.saved(second));
+        shipIndex.onShipsChanged(ShipsChangedEvent.saved(first));
+
+        Ship indexed = shipIndex.find(NO_FILTER, ShipOrder.SPEED, 0, 1).get(0);
+        assertEquals(Long.valueOf(2L), indexed.getId());
+        assertEquals(Double.valueOf(0.10), indexed.getSpeed());
+
+        save(ship(7L, "Hermes", "Venus", ShipType.MERCHANT, false, 0.05, 445, 0.40));
+        rows.remove(7L);
+        shipIndex.onShipsChanged(ShipsChangedEvent.deleted(7L));
+        shipIndex.onShipsChanged(ShipsChangedEvent.saved(ship(7L, "Hermes", "Venus", ShipType.MERCHANT,
+                false, 0.05, 445, 0.40)));
+        assertEquals(5, shipIndex.count(NO_FILTER));
+    }
+
+    @Test
+    public void rowsAreReadOutsideTheLock() {
+        duringReload = () -> {
+            ExecutorService reader = Executors.newSingleThreadExecutor();
+            try {
+                assertEquals(Integer.valueOf(5), reader.submit(() -> shipIndex.count(NO_FILTER)).get(5, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                throw new AssertionError("a read waited for the reload", e);
+            } finally {
+                reader.shutdownNow();
+            }
+        };
+        save(ship(6L, "Hermes", "Venus", ShipType.MERCHANT, false, 0.05, 445, 0.40));
+
+        assertEquals(6, shipIndex.count(NO_FILTER));
+    }
+
+    @Test
+    public void slowReloadDoesNotOverwriteALaterOne() {
+        Ship older = ship(2L, "Daedalus", "Jupiter", ShipType.MERCHANT, true, 0.50, 1619, 1.00);
+        Ship newer = ship(2L, "Daedalus", "Jupiter", ShipType.MERCHANT, true, 0.10, 1619, 0.20);
+        rows.put(2L, older);
+        duringReload = () -> save(newer);
+        shipIndex.onShipsChanged(ShipsChangedEvent.saved(older));
+
+        assertEquals(Double.valueOf(0.10), shipIndex.find(NO_FILTER, ShipOrder.SPEED, 0, 1).get(0).getSpeed());
+    }
+
+    @Test
+    public void bulkEventsReloadInTheBackground() throws InterruptedException {
+        rows.put(1L, ship(1L, "Orion III", "Mars", ShipType.MERCHANT, false, 0.82, 617, 0.66));
+        rows.put(3L, ship(3L, "Eagle Transporter", "Earth", ShipType.TRANSPORT, false, 0.79, 4527, 0.51));
+        rows.remove(4L);
+        rows.remove(5L);
+        shipIndex.onShipsChanged(ShipsChangedEvent.bulk());
+
+        assertTrue(shipIndex.awaitReloads(5000));
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(shipIndex.find(NO_FILTER, ShipOrder.ID, 0, 10)));
+        assertEquals(2, shipIndex.count(new ShipFilter(null, null, null, null, null, false,
+                null, null, null, null, null, null)));
+        assertEquals(Collections.emptyList(), reloaded);
+        assertEquals(1, published.size());
+        assertTrue(published.get(0) instanceof ShipIndexReloadedEvent);
+    }
+
+    @Test
+    public void reloadKeepsWritesAppliedAfterItsRead() throws InterruptedException {
+        rows.remove(5L);
+        Ship newer = ship(2L, "Daedalus", "Jupiter", ShipType.MERCHANT, true, 0.10, 1619, 0.20);
+        duringReload = () -> save(newer);
+        shipIndex.onShipsChanged(ShipsChangedEvent.bulk());
+
+        assertTrue(shipIndex.awaitReloads(5000));
+        assertEquals(4, shipIndex.count(NO_FILTER));
+        assertEquals(Double.valueOf(0.10), shipIndex.find(NO_FILTER, ShipOrder.SPEED, 0, 1).get(0).getSpeed());
+    }
+
+    @Test
+    public void nullColumnsMatchLikeSql() {
+        Ship empty = new Ship();
+        empty.setId(6L);
+        rows.put(6L, empty);
+        shipIndex.rebuild(rows.values());
+
+        assertEquals(6, shipIndex.count(NO_FILTER));
+        assertEquals(2, shipIndex.count(new ShipFilter(null, null, ShipType.MERCHANT, null, null, null,
+                null, null, null, null, null, null)));
+        assertEquals(2, shipIndex.count(new ShipFilter(null, null, null, null, null, false,
+                null, null, null, null, null, null)));
+        assertEquals(3, shipIndex.count(nameContains("a")));
+        assertEquals(1, shipIndex.count(new ShipFilter(null, null, null, null, null, null,
+                null, 0.3, null, null, null, null)));
+        assertEquals(2, shipIndex.count(new ShipFilter(null, null, null, null, null, null,
+                null, null, null, 617, null, null)));
+        assertEquals(1, shipIndex.count(new ShipFilter(null, null, null, null, 32998274577071L - 4 * 31536000000L,
+                null, null, null, null, null, null, 3.0)));
+
+        Ship first = shipIndex.find(NO_FILTER, ShipOrder.RATING, 0, 1).get(0);
+        assertEquals(Long.valueOf(6L), first.getId());
+        assertNull(first.getName());
+        assertNull(first.getShipType());
+        assertNull(first.getProdDate());
+        assertNull(first.getUsed());
+        assertNull(first.getSpeed());
+        assertNull(first.getCrewSize());
+        assertNull(first.getRating());
+
+        delete(6L);
+        assertEquals(5, shipIndex.count(NO_FILTER));
+    }
+
+    private void save(Ship ship) {
+        rows.put(ship.getId(), ship);
+        shipIndex.onShipsChanged(ShipsChangedEvent.saved(ship));
+    }
+
+    private void delete(Long id) {
+        rows.remove(id);
+        shipIndex.onShipsChanged(ShipsChangedEvent.deleted(id));
+    }
+
+    // Answers findByIdIn and findAllCommitted from rows; the index calls nothing else after the initial rebuild.
+    @SuppressWarnings("unchecked")
+    private ShipRepository repository() {
+        return (ShipRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ShipRepository.class}, (proxy, method, args) -> {
+                    List<Ship> found = new ArrayList<>();
+                    if (method.getName().equals("findAllCommitted")) {
+                        found.addAll(rows.values());
+                    } else if (method.getName().equals("findByIdIn")) {
+                        for (Long id : (Collection<Long>) args[0]) {
+                            reloaded.add(id);
+                            if (rows.containsKey(id)) {
+                                found.add(rows.get(id));
+                            }
+                        }
+                    } else {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    if (duringReload != null) {
+                        Runnable hook = duringReload;
+                        duringReload = null;
+                        hook.run();
+                    }
+                    return found;
+                });
+    }
+
+    private static ShipFilter nameContains(String name) {
+        return new ShipFilter(name, null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private static Ship ship(Long id, String name, String planet, ShipType shipType, boolean isUsed,
+                             double speed, int crewSize, double rating) {
+        Ship ship = new Ship();
+        ship.setId(id);
+        ship.setName(name);
+        ship.setPlanet(planet);
+        ship.setShipType(shipType);
+        ship.setProdDate(new java.sql.Date(32998274577071L - id * 31536000000L));
+        ship.setUsed(isUsed);
+        ship.setSpeed(speed);
+        ship.setCrewSize(crewSize);
+        ship.setRating(rating);
+        return ship;
+    }
+
+    private static List<Long> ids(List<Ship> ships) {
+        List<Long> ids = new ArrayList<>();
+        for (Ship ship : ships) {
+            ids.add(ship.getId());
+        }
+        return ids;
+    }
+}
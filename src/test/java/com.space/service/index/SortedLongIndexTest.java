@@ -0,0 +1,83 @@
+package com.space.service.index;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class SortedLongIndexTest {
+
+    private static final Comparator<long[]> ORDER = Comparator.<long[]>comparingLong(pair -> pair[0])
+            .thenComparingLong(pair -> pair[1]);
+
+    @Test
+    public void writesAcrossManyChunksKeepSlicesSorted() {
+        Random random = new Random(7);
+        SortedLongIndex index = new SortedLongIndex();
+        TreeSet<long[]> expected = new TreeSet<>(ORDER);
+        for (int i = 0; i < 20 * SortedLongIndex.CHUNK_CAPACITY; i++) {
+            long key = random.nextInt(1000);
+            int slot = random.nextInt(5000);
+            if (random.nextInt(3) == 0 && !expected.isEmpty()) {
+                long[] existing = expected.ceiling(new long[]{key, slot});
+                if (existing != null) {
+                    expected.remove(existing);
+                    index.remove(existing[0], (int) existing[1]);
+                }
+            } else if (expected.add(new long[]{key, slot})) {
+                index.add(key, slot);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        assertSlice(expected, index, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertSlice(expected, index, 100, 100);
+        assertSlice(expected, index, 250, 740);
+        assertSlice(expected, index, 990, Long.MAX_VALUE);
+        assertSlice(expected, index, 2000, 3000);
+    }
+
+    @Test
+    public void loadedIndexAcceptsWrites() {
+        int count = 3 * SortedLongIndex.CHUNK_CAPACITY;
+        long[] keys = new long[count];
+        int[] slots = new int[count];
+        TreeSet<long[]> expected = new TreeSet<>(ORDER);
+        for (int i = 0; i < count; i++) {
+            keys[i] = count - i;
+            slots[i] = i;
+            expected.add(new long[]{keys[i], i});
+        }
+        SortedLongIndex index = new SortedLongIndex();
+        index.load(keys, slots, count);
+        for (int i = 0; i < count; i += 2) {
+            index.remove(keys[i], slots[i]);
+            expected.remove(new long[]{keys[i], i});
+        }
+        index.add(5, count);
+        expected.add(new long[]{5, count});
+
+        assertEquals(expected.size(), index.size());
+        assertSlice(expected, index, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertSlice(expected, index, 1, 10);
+    }
+
+    private static void assertSlice(TreeSet<long[]> expected, SortedLongIndex index, long from, long to) {
+        List<Integer> expectedSlots = new ArrayList<>();
+        for (long[] pair : expected) {
+            if (pair[0] >= from && pair[0] <= to) {
+                expectedSlots.add((int) pair[1]);
+            }
+        }
+        List<Integer> actualSlots = new ArrayList<>();
+        SortedLongIndex.Slice slice = index.slice(from, to);
+        slice.forEachSlot(actualSlots::add);
+        assertEquals(expectedSlots.size(), slice.size());
+        assertEquals(expectedSlots, actualSlots);
+    }
+}
@@ -0,0 +1,200 @@
+package com.space.service.ingest;
+
+import com.space.exceptions.IngestQueueFullException;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipsChangedEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+public class ShipIngestQueueTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private CountDownLatch writerReleased;
+    private AtomicInteger failingCommits;
+    private List<ShipsChangedEvent> events;
+    private ShipIngestQueue ingestQueue;
+
+    @Before
+    public void setup() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(H2)
+                .setScriptEncoding("UTF-8")
+                .addScript("test.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        writerReleased = new CountDownLatch(0);
+        failingCommits = new AtomicInteger();
+        events = new ArrayList<>();
+
+        ingestQueue = new ShipIngestQueue();
+        ingestQueue.setDataSource(database);
+        ingestQueue.setTransactionManager(new DataSourceTransactionManager(database) {
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+                try {
+                    writerReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failingCommits.getAndDecrement() > 0) {
+                    throw new CannotCreateTransactionException("database unavailable");
+                }
+                super.doBegin(transaction, definition);
+            }
+        });
+        ingestQueue.setEventPublisher(event -> {
+            synchronized (events) {
+                events.add((ShipsChangedEvent) event);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        writerReleased.countDown();
+        ingestQueue.destroy();
+        database.shutdown();
+    }
+
+    @Test
+    public void fullGroupIsWrittenInOneCommit() throws InterruptedException {
+        ingestQueue.setBatchSize(5);
+        ingestQueue.setLingerMillis(10000);
+        ingestQueue.afterPropertiesSet();
+
+        for (long id = 101; id <= 105; id++) {
+            ingestQueue.enqueue(ship(id));
+        }
+
+        assertTrue(ingestQueue.awaitWritten(105L, 5000));
+        assertEquals(45, count());
+        assertEquals(1, ingestQueue.getCommits());
+        assertEquals(5, ingestQueue.getWritten());
+        assertEquals(1, events.size());
+        assertEquals(5, events.get(0).getSaved().size());
+    }
+
+    @Test
+    public void fullQueueRefusesShipsAndQueuedShipsStayReadable() throws InterruptedException {
+        writerReleased = new CountDownLatch(1);
+        ingestQueue.setCapacity(2);
+        ingestQueue.setBatchSize(1);
+        ingestQueue.setLingerMillis(0);
+        ingestQueue.afterPropertiesSet();
+
+        ingestQueue.enqueue(ship(101));
+        while (ingestQueue.getQueued() > 0) {
+            Thread.sleep(5);
+        }
+        ingestQueue.enqueue(ship(102));
+        ingestQueue.enqueue(ship(103));
+        try {
+            ingestQueue.enqueue(ship(104));
+            fail("a full queue must refuse the ship");
+        } catch (IngestQueueFullException e) {
+            assertEquals(1, ingestQueue.getRefused());
+        }
+        assertNotNull(ingestQueue.getPending(101L));
+        assertNotNull(ingestQueue.getPending(103L));
+        assertNull(ingestQueue.getPending(104L));
+        assertEquals(40, count());
+
+        writerReleased.countDown();
+        assertTrue(ingestQueue.awaitWritten(103L, 5000));
+        assertEquals(43, count());
+        assertNull(ingestQueue.getPending(101L));
+        assertEquals(3, ingestQueue.getWritten());
+    }
+
+    @Test
+    public void failingListenerDoesNotStopTheWriter() throws InterruptedException {
+        ingestQueue.setEventPublisher(event -> {
+            throw new IllegalStateException("listener failed");
+        });
+        ingestQueue.setBatchSize(1);
+        ingestQueue.setLingerMillis(0);
+        ingestQueue.afterPropertiesSet();
+
+        ingestQueue.enqueue(ship(101));
+        assertTrue(ingestQueue.awaitWritten(101L, 5000));
+        ingestQueue.enqueue(ship(102));
+        assertTrue(ingestQueue.awaitWritten(102L, 5000));
+
+        assertEquals(42, count());
+        assertEquals(0, ingestQueue.getPendingCount());
+    }
+
+    @Test
+    public void failedGroupIsRetriedAndStallsTheQueue() throws InterruptedException {
+        failingCommits.set(6);
+        ingestQueue.setAttempts(2);
+        ingestQueue.setMaxBackoffMillis(50);
+        ingestQueue.setBatchSize(1);
+        ingestQueue.setLingerMillis(0);
+        ingestQueue.afterPropertiesSet();
+
+        ingestQueue.enqueue(ship(101));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!ingestQueue.isStalled()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+        assertNotNull(ingestQueue.getPending(101L));
+        try {
+            ingestQueue.enqueue(ship(102));
+            fail("a stalled queue must refuse new ships");
+        } catch (IngestQueueFullException e) {
+            assertNull(ingestQueue.getPending(102L));
+        }
+
+        assertTrue(ingestQueue.awaitWritten(101L, 5000));
+        assertEquals(41, count());
+        assertEquals(6, ingestQueue.getFailedAttempts());
+        assertFalse(ingestQueue.isStalled());
+        ingestQueue.enqueue(ship(102));
+        assertTrue(ingestQueue.awaitWritten(102L, 5000));
+        assertEquals(42, count());
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ship", Integer.class);
+    }
+
+    private static Ship ship(long id) {
+        Ship ship = new Ship();
+        ship.setId(id);
+        ship.setName("Ingested " + id);
+        ship.setPlanet("Earth");
+        ship.setShipType(ShipType.MERCHANT);
+        ship.setProdDate(new Date(32998274577071L));
+        ship.setUsed(false);
+        ship.setSpeed(0.5);
+        ship.setCrewSize(10);
+        ship.setRating(2.0);
+        return ship;
+    }
+}
@@ -0,0 +1,80 @@
+package com.space.config;
+
+import com.space.controller.AbstractTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Not in com.space.controller: WebConfig scans that package, and Spring 5.1 cannot read Java 21 class files.
+// The executor is set as VirtualThreadInit sets it in a container.
+@TestPropertySource(properties = "cosmoport.mvc.task-executor=com.space.config.VirtualThreadTaskExecutor")
+public class VirtualThreadDispatchTest extends AbstractTest {
+
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private WebApplicationContext webContext;
+    private MockMvc mockMvc;
+
+    @Autowired
+    public void setWebContext(WebApplicationContext webContext) {
+        this.webContext = webContext;
+    }
+
+    @Before
+    public void setupDispatch() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+    }
+
+    @Test
+    public void handlersRunOnVirtualThreads() throws Exception {
+        MockHttpServletResponse list = perform(get("/rest/ships").param("order", "RATING").param("pageSize", "7"));
+        MockHttpServletResponse export = perform(get("/rest/ships/export").param("planet", "Mars"));
+
+        assertEquals(200, list.getStatus());
+        assertEquals(200, export.getStatus());
+        assertEquals(2, threads.size());
+        for (Thread thread : threads) {
+            assertTrue(thread.getName(), thread.isVirtual() && thread.getName().startsWith("rest-"));
+        }
+    }
+
+    @Test
+    public void errorsKeepTheirStatus() throws Exception {
+        assertEquals(404, perform(get("/rest/ships/1000")).getStatus());
+        assertEquals(400, perform(get("/rest/ships/0")).getStatus());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder.with(request -> {
+            WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor("probe",
+                    new CallableProcessingInterceptor() {
+                        @Override
+                        public <T> void preProcess(NativeWebRequest webRequest, Callable<T> task) {
+                            threads.add(Thread.currentThread());
+                        }
+                    });
+            return request;
+        })).andReturn();
+        assertTrue(result.getRequest().isAsyncStarted());
+        result.getAsyncResult(5000);
+        return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,182 @@
+package com.space.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Throughput of the /rest/ships endpoints through DispatcherServlet, ShipController,
+ * ShipServiceImpl and Hibernate over a Hikari pool, in the two configurations this build can run:
+ * platform threads with the pool settings of cosmoport.properties, and ShipController on virtual
+ * threads, as VirtualThreadInit sets it up, with those of cosmoport-virtual-threads.properties.
+ * CLIENTS clients share CONTAINER_THREADS threads that stand in for the container's pool, Tomcat's
+ * default of 200. The data is test.sql in H2, and every statement and commit first waits
+ * ROUND_TRIP_MILLIS, as it would for a database on another host.
+ * <p>
+ * The numbers are only printed. It is not part of the unit suite; run it with
+ * {@code mvn -Pvirtual-threads test -Dtest=VirtualThreadLoadBenchmark}.
+ */
+public class VirtualThreadLoadBenchmark {
+
+    private static final int CONTAINER_THREADS = 200;
+    private static final int CLIENTS = 1000;
+    private static final int WARM_UP_REQUESTS = 2000;
+    private static final int REQUESTS = 10000;
+    private static final long ROUND_TRIP_MILLIS = 2;
+    private static final Set<Class<?>> DELAYED_TYPES =
+            Set.of(Connection.class, Statement.class, PreparedStatement.class, CallableStatement.class);
+
+    @Test
+    public void platformAndVirtualThreads() throws Exception {
+        run("platform threads", false);
+        run("virtual threads", true);
+    }
+
+    private static void run(String name, boolean virtual) throws Exception {
+        ExecutorService container = Executors.newFixedThreadPool(CONTAINER_THREADS);
+        try (AnnotationConfigWebApplicationContext context = context(virtual)) {
+            MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+            serve(mockMvc, container, WARM_UP_REQUESTS);
+            long start = System.nanoTime();
+            int failed = serve(mockMvc, container, REQUESTS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-16s %2s connections %7.0f requests/s (%.2f s, %d failed)%n",
+                    name, context.getEnvironment().getProperty("cosmoport.datasource.pool.maximum-size"),
+                    REQUESTS / seconds, seconds, failed);
+        } finally {
+            container.shutdown();
+        }
+    }
+
+    // The -Pvirtual-threads classpath always has cosmoport-virtual-threads.properties, so the
+    // platform run puts cosmoport.properties back in front of it.
+    private static AnnotationConfigWebApplicationContext context(boolean virtual) throws Exception {
+        MockServletContext servletContext = new MockServletContext();
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(servletContext);
+        context.getEnvironment().setActiveProfiles("benchmark");
+        if (virtual) {
+            new VirtualThreadInit().onStartup(servletContext);
+        } else {
+            context.getEnvironment().getPropertySources()
+                    .addFirst(new ResourcePropertySource("classpath:cosmoport.properties"));
+        }
+        context.register(AppConfig.class, WebConfig.class, DatabaseConfig.class);
+        context.refresh();
+        return context;
+    }
+
+    // CLIENTS clients send the requests one after another, each waiting for its response.
+    private static int serve(MockMvc mockMvc, ExecutorService container, int requests) {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.execute(() -> {
+                    for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                        try {
+                            if (call(mockMvc, container, request(i)).getStatus() != 200) {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        return failed.get();
+    }
+
+    // A list, a count and a single ship in turn.
+    private static RequestBuilder request(int i) {
+        if (i % 3 == 0) {
+            return get("/rest/ships").param("order", "RATING").param("pageSize", "10");
+        }
+        if (i % 3 == 1) {
+            return get("/rest/ships/count").param("isUsed", "false");
+        }
+        return get("/rest/ships/" + (i % 40 + 1));
+    }
+
+    // The request takes a container thread, and once more for the async dispatch that writes the
+    // result when the handler ran on another thread.
+    private static MockHttpServletResponse call(MockMvc mockMvc, ExecutorService container, RequestBuilder request)
+            throws Exception {
+        MvcResult result = container.submit(() -> mockMvc.perform(request).andReturn()).get();
+        if (!result.getRequest().isAsyncStarted()) {
+            return result.getResponse();
+        }
+        result.getAsyncResult(TimeUnit.MINUTES.toMillis(1));
+        return container.submit(() -> mockMvc.perform(asyncDispatch(result)).andReturn().getResponse()).get();
+    }
+
+    // A pooled H2 database with the pool settings of the run, in place of the prod MySQL pools.
+    @Configuration
+    static class DatabaseConfig {
+
+        @Bean(destroyMethod = "close")
+        public HikariDataSource dataSource(Environment environment) {
+            JdbcDataSource h2 = new JdbcDataSource();
+            h2.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+            HikariConfig config = new HikariConfig();
+            config.setDataSource((DataSource) delayed(h2, DataSource.class));
+            config.setMaximumPoolSize(environment.getProperty("cosmoport.datasource.pool.maximum-size", Integer.class));
+            config.setMinimumIdle(environment.getProperty("cosmoport.datasource.pool.minimum-idle", Integer.class));
+            config.setConnectionTimeout(environment.getProperty("cosmoport.datasource.pool.connection-timeout", Long.class));
+            HikariDataSource dataSource = new HikariDataSource(config);
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+            populator.setSqlScriptEncoding("UTF-8");
+            populator.execute(dataSource);
+            return dataSource;
+        }
+    }
+
+    private static Object delayed(Object target, Class<?> type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute") || name.equals("commit") || name.equals("rollback")) {
+                Thread.sleep(ROUND_TRIP_MILLIS);
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            return result != null && DELAYED_TYPES.contains(method.getReturnType())
+                    ? delayed(result, method.getReturnType()) : result;
+        });
+    }
+}